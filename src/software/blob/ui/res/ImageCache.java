@@ -0,0 +1,278 @@
+package software.blob.ui.res;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Thread-safe image cache bounded by the decoded size of its images
+ *
+ * Images are kept in an LRU map until the byte budget is exceeded. Evicted images move to an
+ * optional soft-reference tier, which the garbage collector may clear under memory pressure.
+ * Concurrent requests for the same key share a single load.
+ */
+public class ImageCache {
+
+    private static final Entry NONE = new Entry(null, 0);
+
+    /**
+     * Cached image and its shared icon wrapper
+     */
+    private static class Entry {
+
+        final Image image;
+        final long bytes;
+        volatile Icon icon;
+
+        Entry(Image image, long bytes) {
+            this.image = image;
+            this.bytes = bytes;
+        }
+
+        Icon getIcon() {
+            Icon icon = this.icon;
+            if (icon == null && image != null)
+                this.icon = icon = new ImageIcon(image);
+            return icon;
+        }
+    }
+
+    // Strong LRU tier (guarded by this)
+    private final LinkedHashMap<String, Entry> lru = new LinkedHashMap<>(16, 0.75f, true);
+    private long maxBytes, bytes;
+
+    // Soft reference tier
+    private final Map<String, SoftReference<Entry>> soft = new ConcurrentHashMap<>();
+    private volatile boolean softReferences = true;
+
+    // Loads in progress
+    private final Map<String, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+
+    // Statistics
+    private final AtomicLong hits = new AtomicLong(), softHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong(), evictions = new AtomicLong();
+
+    public ImageCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Set the maximum number of bytes of decoded image data to keep strongly referenced
+     * @param maxBytes Byte budget
+     */
+    public void setMaxBytes(long maxBytes) {
+        synchronized (this) {
+            this.maxBytes = maxBytes;
+            trim();
+        }
+    }
+
+    public synchronized long getMaxBytes() {
+        return this.maxBytes;
+    }
+
+    /**
+     * Set whether evicted images are kept in a soft reference tier
+     * @param softReferences True to keep soft references to evicted images
+     */
+    public void setSoftReferences(boolean softReferences) {
+        this.softReferences = softReferences;
+        if (!softReferences)
+            soft.clear();
+    }
+
+    /**
+     * Get an image, loading it if it isn't cached
+     * @param key Image key
+     * @param loader Loads the image for a key (may return null)
+     * @return Image or null if the load failed
+     */
+    public Image get(String key, Function<String, Image> loader) {
+        return getEntry(key, loader).image;
+    }
+
+    /**
+     * Get the shared icon for an image, loading it if it isn't cached
+     * The same icon instance is returned until the image is evicted, so it shouldn't be modified.
+     * @param key Image key
+     * @param loader Loads the image for a key (may return null)
+     * @return Icon or null if the load failed
+     */
+    public Icon getIcon(String key, Function<String, Image> loader) {
+        return getEntry(key, loader).getIcon();
+    }
+
+    /**
+     * Get an image if it's cached
+     * @param key Image key
+     * @return Image or null if not cached
+     */
+    public Image getIfPresent(String key) {
+        Entry e = find(key);
+        return e != null ? e.image : null;
+    }
+
+    /**
+     * Add an image to the cache
+     * @param key Image key
+     * @param image Image
+     */
+    public void put(String key, Image image) {
+        if (image != null)
+            store(key, new Entry(image, getByteSize(image)));
+    }
+
+    /**
+     * Remove an image from the cache
+     * @param key Image key
+     */
+    public void remove(String key) {
+        synchronized (this) {
+            Entry e = lru.remove(key);
+            if (e != null)
+                bytes -= e.bytes;
+        }
+        soft.remove(key);
+    }
+
+    /**
+     * Remove all images from the cache
+     */
+    public void clear() {
+        synchronized (this) {
+            lru.clear();
+            bytes = 0;
+        }
+        soft.clear();
+    }
+
+    public synchronized long getByteCount() {
+        return this.bytes;
+    }
+
+    public synchronized int getCount() {
+        return lru.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getSoftHitCount() {
+        return softHits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ImageCache[" + getCount() + " images, " + getByteCount() + "/" + getMaxBytes() + " bytes, "
+                + hits + " hits, " + softHits + " soft hits, " + misses + " misses, " + evictions + " evictions]";
+    }
+
+    /**
+     * Estimate the memory used by an image's pixel data
+     * @param image Image
+     * @return Size in bytes
+     */
+    public static long getByteSize(Image image) {
+        int w = Math.max(0, image.getWidth(null)), h = Math.max(0, image.getHeight(null));
+        int bytesPerPixel = 4;
+        if (image instanceof BufferedImage)
+            bytesPerPixel = Math.max(1, ((BufferedImage) image).getColorModel().getPixelSize() / 8);
+        return (long) w * h * bytesPerPixel;
+    }
+
+    private Entry getEntry(String key, Function<String, Image> loader) {
+        Entry e = find(key);
+        if (e != null)
+            return e;
+
+        // Share the load with any other thread requesting the same image
+        CompletableFuture<Entry> future = new CompletableFuture<>();
+        CompletableFuture<Entry> existing = loading.putIfAbsent(key, future);
+        if (existing != null)
+            return existing.join();
+
+        misses.incrementAndGet();
+        try {
+            Image image = loader.apply(key);
+            e = image != null ? new Entry(image, getByteSize(image)) : NONE;
+            if (image != null)
+                store(key, e);
+            future.complete(e);
+        } catch (RuntimeException ex) {
+            future.complete(NONE);
+            throw ex;
+        } finally {
+            loading.remove(key);
+        }
+        return e;
+    }
+
+    private Entry find(String key) {
+        Entry e;
+        synchronized (this) {
+            e = lru.get(key);
+        }
+        if (e != null) {
+            hits.incrementAndGet();
+            return e;
+        }
+
+        // Promote from the soft tier
+        SoftReference<Entry> ref = soft.get(key);
+        e = ref != null ? ref.get() : null;
+        if (e != null) {
+            softHits.incrementAndGet();
+            store(key, e);
+            return e;
+        }
+        if (ref != null)
+            soft.remove(key, ref);
+        return null;
+    }
+
+    private void store(String key, Entry e) {
+        soft.remove(key);
+        synchronized (this) {
+            if (e.bytes > maxBytes) {
+                // Too large to keep strongly referenced
+                if (softReferences)
+                    soft.put(key, new SoftReference<>(e));
+                return;
+            }
+            Entry old = lru.put(key, e);
+            if (old != null)
+                bytes -= old.bytes;
+            bytes += e.bytes;
+            trim();
+        }
+    }
+
+    private void trim() {
+        Iterator<Map.Entry<String, Entry>> it = lru.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            it.remove();
+            bytes -= eldest.getValue().bytes;
+            evictions.incrementAndGet();
+            if (softReferences)
+                soft.put(eldest.getKey(), new SoftReference<>(eldest.getValue()));
+        }
+    }
+}
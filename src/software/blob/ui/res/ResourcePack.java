@@ -0,0 +1,274 @@
+package software.blob.ui.res;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Compiled resource bundle which is memory-mapped read-only
+ *
+ * File layout (big-endian):
+ * - Header: magic, version
+ * - String pool: count, absolute offset of each string, then the strings (byte length + UTF-8)
+ * - Entry index: count, then key string index, type, data offset and data length for each entry
+ * - Entry data
+ *
+ * The format of each entry's data depends on its type and is read by the class which owns that resource type.
+ */
+public class ResourcePack {
+
+    public static final int MAGIC = 0x42565250; // "BVRP"
+    public static final int VERSION = 1;
+
+    // Entry types
+    public static final int TYPE_STRING = 1;    // Value string index
+    public static final int TYPE_INT = 2;       // Value string index, decoded int
+    public static final int TYPE_BOOLEAN = 3;   // Value string index, decoded boolean (byte)
+    public static final int TYPE_STYLE = 4;     // Item count, then key and value string indices
+    public static final int TYPE_LAYOUT = 5;    // Compiled layout nodes
+    public static final int TYPE_BLOB = 6;      // Raw file contents
+
+    private static final int ENTRY_SIZE = 16;
+
+    private final File file;
+    private final ByteBuffer buf;
+    private final int stringCount, stringTable;
+    private final int entryCount, entryTable;
+    private final String[] strings;
+    private final Map<String, Integer> entries;
+
+    private ResourcePack(File file, ByteBuffer buf) throws IOException {
+        this.file = file;
+        this.buf = buf;
+        if (buf.getInt(0) != MAGIC)
+            throw new IOException("Not a resource pack: " + file);
+        int version = buf.getInt(4);
+        if (version != VERSION)
+            throw new IOException("Unsupported resource pack version " + version + ": " + file);
+
+        this.stringCount = buf.getInt(8);
+        this.stringTable = 12;
+        this.entryCount = buf.getInt(stringTable + stringCount * 4);
+        this.entryTable = stringTable + stringCount * 4 + 4;
+        this.strings = new String[stringCount];
+
+        // Only the keys are decoded up front
+        Map<String, Integer> entries = new HashMap<>(entryCount * 2);
+        for (int i = 0; i < entryCount; i++)
+            entries.put(getString(buf.getInt(entryTable + i * ENTRY_SIZE)), i);
+        this.entries = entries;
+    }
+
+    /**
+     * Map a resource pack file
+     * @param file Resource pack file
+     * @return Resource pack
+     * @throws IOException Failed to read file or invalid format
+     */
+    public static ResourcePack open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ResourcePack(file, buf);
+        }
+    }
+
+    public File getFile() {
+        return this.file;
+    }
+
+    /**
+     * Get all entry keys in this pack
+     * @return Keys (i.e. "color/white", "layout/layout_dialog.xml", "icons/folder.png")
+     */
+    public Set<String> getKeys() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    public boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Get the type of an entry
+     * @param key Entry key
+     * @return Entry type or 0 if not found
+     */
+    public int getType(String key) {
+        Integer i = entries.get(key);
+        return i != null ? buf.getInt(entryTable + i * ENTRY_SIZE + 4) : 0;
+    }
+
+    /**
+     * Get the data of an entry
+     * @param key Entry key
+     * @return Read-only buffer positioned at the start of the data or null if not found
+     */
+    public ByteBuffer getData(String key) {
+        Integer i = entries.get(key);
+        if (i == null)
+            return null;
+        int pos = entryTable + i * ENTRY_SIZE;
+        int offset = buf.getInt(pos + 8), length = buf.getInt(pos + 12);
+        ByteBuffer data = buf.duplicate();
+        data.position(offset).limit(offset + length);
+        return data.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Open a stream for a blob entry
+     * @param key Entry key
+     * @return Input stream or null if not found
+     */
+    public InputStream getStream(String key) {
+        ByteBuffer data = getData(key);
+        return data != null ? new BufferInputStream(data) : null;
+    }
+
+    /**
+     * Get a string from the string pool
+     * @param index String index
+     * @return String or null if the index is negative
+     */
+    public String getString(int index) {
+        if (index < 0)
+            return null;
+        String str = strings[index];
+        if (str == null) {
+            int offset = buf.getInt(stringTable + index * 4);
+            byte[] bytes = new byte[buf.getInt(offset)];
+            ByteBuffer b = buf.duplicate();
+            b.position(offset + 4);
+            b.get(bytes);
+            strings[index] = str = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return str;
+    }
+
+    @Override
+    public String toString() {
+        return "ResourcePack[" + file + ", " + entryCount + " entries]";
+    }
+
+    /**
+     * Input stream over a buffer
+     */
+    private static class BufferInputStream extends InputStream {
+
+        private final ByteBuffer buf;
+
+        BufferInputStream(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        @Override
+        public int read() {
+            return buf.hasRemaining() ? buf.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0)
+                return 0;
+            if (!buf.hasRemaining())
+                return -1;
+            len = Math.min(len, buf.remaining());
+            buf.get(b, off, len);
+            return len;
+        }
+
+        @Override
+        public int available() {
+            return buf.remaining();
+        }
+    }
+
+    /**
+     * Builds a resource pack file
+     */
+    public static class Writer {
+
+        private final List<String> strings = new ArrayList<>();
+        private final Map<String, Integer> stringIndex = new HashMap<>();
+        private final Map<String, Integer> types = new TreeMap<>();
+        private final Map<String, byte[]> data = new HashMap<>();
+
+        /**
+         * Add a string to the string pool
+         * @param str String
+         * @return String index (-1 if null)
+         */
+        public int intern(String str) {
+            if (str == null)
+                return -1;
+            Integer i = stringIndex.get(str);
+            if (i == null) {
+                i = strings.size();
+                strings.add(str);
+                stringIndex.put(str, i);
+            }
+            return i;
+        }
+
+        /**
+         * Add an entry, replacing any existing entry with the same key
+         * @param key Entry key
+         * @param type Entry type
+         * @param bytes Entry data
+         */
+        public void add(String key, int type, byte[] bytes) {
+            intern(key);
+            types.put(key, type);
+            data.put(key, bytes);
+        }
+
+        /**
+         * Write the pack to a file
+         * @param file Output file
+         * @throws IOException Failed to write
+         */
+        public void write(File file) throws IOException {
+            // String data starts after the header, string table and entry table
+            int offset = 12 + strings.size() * 4 + 4 + types.size() * ENTRY_SIZE;
+            int[] stringOffsets = new int[strings.size()];
+            List<byte[]> stringBytes = new ArrayList<>(strings.size());
+            for (int i = 0; i < strings.size(); i++) {
+                byte[] bytes = strings.get(i).getBytes(StandardCharsets.UTF_8);
+                stringOffsets[i] = offset;
+                stringBytes.add(bytes);
+                offset += 4 + bytes.length;
+            }
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+
+                out.writeInt(strings.size());
+                for (int o : stringOffsets)
+                    out.writeInt(o);
+
+                out.writeInt(types.size());
+                for (Map.Entry<String, Integer> e : types.entrySet()) {
+                    int length = data.get(e.getKey()).length;
+                    out.writeInt(stringIndex.get(e.getKey()));
+                    out.writeInt(e.getValue());
+                    out.writeInt(offset);
+                    out.writeInt(length);
+                    offset += length;
+                }
+
+                for (byte[] bytes : stringBytes) {
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+                for (String key : types.keySet())
+                    out.write(data.get(key));
+            }
+        }
+    }
+}
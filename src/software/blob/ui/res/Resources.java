@@ -1,5 +1,7 @@
 package software.blob.ui.res;
 
+import software.blob.ui.util.Log;
+
 import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
@@ -8,9 +10,8 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Load bundled resources
@@ -21,13 +22,16 @@ public class Resources {
     public static File RES_DIR = new File("./res");
 
     // Classes to use for resource loading
-    private static final List<Class<?>> resourceClasses = new ArrayList<>();
+    private static final List<Class<?>> resourceClasses = new CopyOnWriteArrayList<>();
     static {
         resourceClasses.add(Resources.class);
     }
 
-    // Cached image resources
-    private static final Map<String, Image> icons = new HashMap<>();
+    // Compiled resource packs (see ResourcePack)
+    private static final List<ResourcePack> resourcePacks = new CopyOnWriteArrayList<>();
+
+    // Cached image resources (default budget is 1/16 of the max heap size)
+    private static final ImageCache images = new ImageCache(Runtime.getRuntime().maxMemory() / 16);
 
     /**
      * Add class to use for resource loading
@@ -45,6 +49,31 @@ public class Resources {
         resourceClasses.remove(cl);
     }
 
+    /**
+     * Add a compiled resource pack to load resources from
+     * Loose files in the resource directory still take priority over the pack.
+     * Packs should be added during initialization, before any layouts are inflated.
+     * @param packFile Resource pack file
+     * @return True if the pack was loaded
+     */
+    public static boolean addResourcePack(File packFile) {
+        try {
+            resourcePacks.add(0, ResourcePack.open(packFile));
+            return true;
+        } catch (IOException e) {
+            Log.e("Failed to load resource pack: " + packFile, e);
+            return false;
+        }
+    }
+
+    /**
+     * Get the registered resource packs
+     * @return Resource packs (most recently added first)
+     */
+    public static List<ResourcePack> getResourcePacks() {
+        return resourcePacks;
+    }
+
     /**
      * Get input stream for an embedded resource
      * @param resPath Resource path (relative to software/blob/ui/res)
@@ -96,7 +125,24 @@ public class Resources {
         String dirPath = RES_DIR.getAbsolutePath();
         if (path.startsWith(dirPath))
             path = path.substring(dirPath.length() + 1);
-        streams.addAll(getResourceStreams(path, maxStreams));
+
+        // Files stored in a compiled resource pack
+        String key = path.replace("\\", "/");
+        for (ResourcePack pack : resourcePacks) {
+            InputStream is = pack.getStream(key);
+            if (is != null) {
+                streams.add(is);
+                if (--maxStreams <= 0)
+                    return streams;
+            }
+        }
+
+        try {
+            streams.addAll(getResourceStreams(path, maxStreams));
+        } catch (IOException e) {
+            if (streams.isEmpty())
+                throw e;
+        }
         return streams;
     }
 
@@ -123,18 +169,8 @@ public class Resources {
     public static Image getImage(String imagePath) {
         if (!imagePath.contains("."))
             imagePath = imagePath + ".png";
-        Image image = icons.get(imagePath);
-        if (image != null)
-            return image;
-        try {
-            image = ImageIO.read(getResourceStream(new File(RES_DIR, "icons/" + imagePath)));
-        } catch (Exception e) {
-            System.err.println("Failed to get image: " + imagePath);
-            e.printStackTrace();
-        }
-        if (image != null)
-            icons.put(imagePath, image);
-        return image;
+        UsageProfile.record(UsageProfile.Type.ICON, imagePath);
+        return images.get(imagePath, Resources::loadImage);
     }
 
     /**
@@ -143,8 +179,40 @@ public class Resources {
      * @return Icon
      */
     public static Icon getIcon(String iconPath) {
+        if (!iconPath.contains("."))
+            iconPath = iconPath + ".png";
+        UsageProfile.record(UsageProfile.Type.ICON, iconPath);
+        return images.getIcon(iconPath, Resources::loadImage);
+    }
+
+    /**
+     * Load an icon scaled to a given size
+     * @param iconPath Icon path relative to "/res/icons"
+     * @param width Icon width
+     * @param height Icon height
+     * @return Icon
+     */
+    public static Icon getIcon(String iconPath, int width, int height) {
         Image img = getImage(iconPath);
-        return img != null ? new ImageIcon(img) : null;
+        return img != null ? ScaledImageCache.getShared().getIcon(img, width, height) : null;
+    }
+
+    /**
+     * Get the cache used for images loaded by {@link #getImage(String)}
+     * @return Image cache
+     */
+    public static ImageCache getImageCache() {
+        return images;
+    }
+
+    private static Image loadImage(String imagePath) {
+        try (InputStream is = getResourceStream(new File(RES_DIR, "icons/" + imagePath))) {
+            return ImageIO.read(is);
+        } catch (Exception e) {
+            System.err.println("Failed to get image: " + imagePath);
+            e.printStackTrace();
+            return null;
+        }
     }
 
     /**
@@ -0,0 +1,260 @@
+package software.blob.ui.res;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide cache of scaled images shared by image views and icons
+ *
+ * Entries are keyed by source image (identity), size and quality. Source images are weakly
+ * referenced so the cache doesn't keep them alive, and the scaled images are bounded by a byte budget.
+ */
+public class ScaledImageCache {
+
+    /**
+     * Scaling quality
+     */
+    public enum Quality {
+
+        // Single bilinear step
+        FAST,
+
+        // Progressive bilinear downsampling (halving the size each step)
+        SMOOTH
+    }
+
+    private static final ScaledImageCache shared = new ScaledImageCache(16 * 1024 * 1024);
+
+    private final LinkedHashMap<Key, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReferenceQueue<Image> queue = new ReferenceQueue<>();
+
+    // Images being scaled, so concurrent requests for the same size share the work
+    private final Map<Key, CompletableFuture<Entry>> scaling = new ConcurrentHashMap<>();
+    private long maxBytes, bytes;
+
+    private static class Key {
+
+        final WeakReference<Image> source;
+        final int hash, width, height;
+        final Quality quality;
+
+        Key(Image source, int width, int height, Quality quality, ReferenceQueue<Image> queue) {
+            this.source = new WeakReference<>(source, queue);
+            this.width = width;
+            this.height = height;
+            this.quality = quality;
+            this.hash = ((System.identityHashCode(source) * 31 + width) * 31 + height) * 31 + quality.ordinal();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            Key other = (Key) o;
+            Image src = source.get();
+            return src != null && src == other.source.get() && width == other.width
+                    && height == other.height && quality == other.quality;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static class Entry {
+
+        final BufferedImage image;
+        Icon icon;
+
+        Entry(BufferedImage image) {
+            this.image = image;
+        }
+    }
+
+    public ScaledImageCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Get the cache shared by the built-in views
+     * @return Shared cache
+     */
+    public static ScaledImageCache getShared() {
+        return shared;
+    }
+
+    public synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        trim();
+    }
+
+    public synchronized long getByteCount() {
+        return this.bytes;
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Get a scaled copy of an image
+     * @param source Source image
+     * @param width Scaled width
+     * @param height Scaled height
+     * @param quality Scaling quality
+     * @param gc Graphics configuration to create a compatible image for (null for default)
+     * @return Scaled image or the source image if it already has the requested size
+     *         or hasn't finished loading
+     */
+    public Image getScaled(Image source, int width, int height, Quality quality, GraphicsConfiguration gc) {
+        Entry e = getEntry(source, width, height, quality, gc);
+        return e != null ? e.image : source;
+    }
+
+    /**
+     * Get a shared icon of a scaled image
+     * @param source Source image
+     * @param width Icon width
+     * @param height Icon height
+     * @return Icon
+     */
+    public Icon getIcon(Image source, int width, int height) {
+        Entry e = getEntry(source, width, height, Quality.SMOOTH, null);
+        if (e == null)
+            return new ImageIcon(source);
+        synchronized (e) {
+            if (e.icon == null)
+                e.icon = new ImageIcon(e.image);
+            return e.icon;
+        }
+    }
+
+    private Entry getEntry(Image source, int width, int height, Quality quality, GraphicsConfiguration gc) {
+        int srcWidth = source.getWidth(null), srcHeight = source.getHeight(null);
+        if (srcWidth == width && srcHeight == height || width <= 0 || height <= 0)
+            return null;
+
+        // Images which are still loading would be scaled (and cached) blank
+        if (srcWidth < 0 || srcHeight < 0)
+            return null;
+
+        Key key = new Key(source, width, height, quality, queue);
+        Entry e = find(key);
+        if (e != null)
+            return e;
+
+        // Scale outside the lock so cache hits aren't held up, sharing the work with other threads
+        CompletableFuture<Entry> future = new CompletableFuture<>();
+        CompletableFuture<Entry> existing = scaling.putIfAbsent(key, future);
+        if (existing != null)
+            return existing.join();
+        try {
+            e = store(key, new Entry(scale(source, width, height, quality, gc)));
+            future.complete(e);
+        } catch (RuntimeException ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            scaling.remove(key);
+        }
+        return e;
+    }
+
+    private synchronized Entry find(Key key) {
+        purge();
+        return cache.get(key);
+    }
+
+    /**
+     * Add a scaled image unless another thread already added one for the same key
+     * @return Entry in the cache
+     */
+    private synchronized Entry store(Key key, Entry e) {
+        Entry existing = cache.get(key);
+        if (existing != null)
+            return existing;
+        cache.put(key, e);
+        bytes += getByteSize(e.image);
+        trim();
+        return e;
+    }
+
+    /**
+     * Scale an image using bilinear interpolation
+     * Downscaling with {@link Quality#SMOOTH} halves the image repeatedly, which gives
+     * results close to area averaging at a fraction of the cost
+     * @param source Source image
+     * @param width Scaled width
+     * @param height Scaled height
+     * @param quality Scaling quality
+     * @param gc Graphics configuration to create a compatible image for (null for default)
+     * @return Scaled image
+     */
+    public static BufferedImage scale(Image source, int width, int height, Quality quality,
+                                      GraphicsConfiguration gc) {
+        Image current = source;
+        int w = source.getWidth(null), h = source.getHeight(null);
+        if (quality == Quality.SMOOTH) {
+            while (w / 2 >= width && h / 2 >= height) {
+                w /= 2;
+                h /= 2;
+                current = draw(current, w, h, gc);
+            }
+        }
+        return draw(current, width, height, gc);
+    }
+
+    private static BufferedImage draw(Image source, int width, int height, GraphicsConfiguration gc) {
+        BufferedImage img = gc != null ? gc.createCompatibleImage(width, height, Transparency.TRANSLUCENT)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = img.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.drawImage(source, 0, 0, width, height, null);
+        g.dispose();
+        return img;
+    }
+
+    private static long getByteSize(BufferedImage img) {
+        return (long) img.getWidth() * img.getHeight()
+                * Math.max(1, img.getColorModel().getPixelSize() / 8);
+    }
+
+    private void trim() {
+        Iterator<Entry> it = cache.values().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            bytes -= getByteSize(it.next().image);
+            it.remove();
+        }
+    }
+
+    /**
+     * Remove entries whose source image has been garbage collected
+     */
+    private void purge() {
+        if (queue.poll() == null)
+            return;
+        while (queue.poll() != null);
+        Iterator<Map.Entry<Key, Entry>> it = cache.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Entry> e = it.next();
+            if (e.getKey().source.get() == null) {
+                bytes -= getByteSize(e.getValue().image);
+                it.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package software.blob.ui.res;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records which resources a session used so they can be loaded ahead of time on the next launch
+ *
+ * The manifest is a plain text file with one "type name" entry per line, i.e.
+ * <pre>
+ * layout file_browser_dialog.xml
+ * icon folder.png
+ * </pre>
+ */
+public class UsageProfile {
+
+    /**
+     * Recorded resource types
+     */
+    public enum Type {
+        VIEW, STYLE, ICON, LAYOUT
+    }
+
+    private static final Map<Type, Set<String>> used = new EnumMap<>(Type.class);
+    static {
+        for (Type type : Type.values())
+            used.put(type, ConcurrentHashMap.newKeySet());
+    }
+
+    private static volatile boolean recording;
+
+    /**
+     * Set whether resource usage is being recorded
+     * @param recording True to record
+     */
+    public static void setRecording(boolean recording) {
+        UsageProfile.recording = recording;
+    }
+
+    public static boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Record that a resource was used
+     * @param type Resource type
+     * @param name Resource name
+     */
+    public static void record(Type type, String name) {
+        if (recording && name != null)
+            used.get(type).add(name);
+    }
+
+    /**
+     * Get the resources recorded so far
+     * @param type Resource type
+     * @return Resource names
+     */
+    public static Set<String> getRecorded(Type type) {
+        return Collections.unmodifiableSet(used.get(type));
+    }
+
+    /**
+     * Clear all recorded resources
+     */
+    public static void clear() {
+        for (Set<String> names : used.values())
+            names.clear();
+    }
+
+    /**
+     * Write the recorded resources to a manifest file
+     * @param file Manifest file
+     * @throws IOException Failed to write
+     */
+    public static void write(File file) throws IOException {
+        try (PrintWriter pw = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file),
+                StandardCharsets.UTF_8))) {
+            for (Type type : Type.values()) {
+                for (String name : new TreeSet<>(used.get(type)))
+                    pw.println(type.name().toLowerCase() + " " + name);
+            }
+        }
+    }
+
+    /**
+     * Read a manifest file
+     * @param file Manifest file
+     * @return Resource names by type
+     * @throws IOException Failed to read
+     */
+    public static Map<Type, List<String>> read(File file) throws IOException {
+        Map<Type, List<String>> entries = new EnumMap<>(Type.class);
+        for (Type type : Type.values())
+            entries.put(type, new ArrayList<>());
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(file),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                int split = line.indexOf(' ');
+                if (split <= 0)
+                    continue;
+                try {
+                    Type type = Type.valueOf(line.substring(0, split).toUpperCase());
+                    entries.get(type).add(line.substring(split + 1).trim());
+                } catch (IllegalArgumentException ignored) {
+                    // Unknown type, possibly from a newer version
+                }
+            }
+        }
+        return entries;
+    }
+}
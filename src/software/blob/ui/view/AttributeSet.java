@@ -7,14 +7,63 @@ import org.w3c.dom.Node;
 import software.blob.ui.view.resource.ResourceMap;
 import software.blob.ui.view.resource.StyleResource;
 
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamReader;
 import java.awt.*;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * View attributes inherited from XML layout
+ *
+ * Attributes are stored compactly as parallel arrays sorted by attribute name symbol, where each
+ * name is interned once per process. Copies share their arrays with the original until either
+ * of them is modified, so the attributes of an inflated view cost only a few objects unless the
+ * view changes them.
  */
-public class AttributeSet extends HashMap<String, String> {
+public class AttributeSet extends AbstractMap<String, String> {
+
+    // Interned attribute names
+    private static final Map<String, Integer> symbolIds = new ConcurrentHashMap<>();
+    private static final Object symbolLock = new Object();
+    private static volatile String[] symbolNames = new String[64];
+    private static int symbolCount;
+
+    private static final int[] NO_IDS = new int[0];
+    private static final String[] NO_VALUES = new String[0];
+
+    // Typed value kinds
+    private static final int COLOR = 1, DIMENSION = 2;
+
+    /**
+     * Cached result of parsing an attribute value
+     */
+    private static final class Typed {
+
+        final int kind, value;
+
+        Typed(int kind, int value) {
+            this.kind = kind;
+            this.value = value;
+        }
+    }
+
+    // Attribute name symbols (ascending) and values
+    private int[] ids = NO_IDS;
+    private String[] values = NO_VALUES;
+    private int size;
+
+    // Resource key each value was resolved from (i.e. "color/white") and parsed values (both lazy)
+    private String[] refs;
+    private Typed[] typed;
+
+    // True if the arrays are shared with a copy and must be copied before writing
+    private boolean shared;
+
+    // True once this set is shared and may no longer be modified
+    private boolean frozen;
+
+    private Set<Entry<String, String>> entrySet;
 
     public AttributeSet() {
     }
@@ -24,25 +73,42 @@ public class AttributeSet extends HashMap<String, String> {
         int attrCount = attrs.getLength();
         for (int j = 0; j < attrCount; j++) {
             Node n = attrs.item(j);
-            String key = n.getNodeName();
-            String value = n.getNodeValue();
-            if (value.startsWith("@")) {
-                Object ref = ResourceMap.getResource(value.substring(1));
-                if (ref != null) {
-                    if (ref instanceof String)
-                        value = (String) ref;
-                    else if (ref instanceof StyleResource) {
-                        StyleResource style = (StyleResource) ref;
-                        putAll(style.getResolvedAttributeSet());
-                    }
-                }
-            }
-            put(key, value);
+            putResolved(n.getNodeName(), n.getNodeValue());
         }
     }
 
+    /**
+     * Read the attributes of the element a streaming reader is positioned at
+     * @param reader XML stream reader (at a start element)
+     */
+    public AttributeSet(XMLStreamReader reader) {
+        // Applied in name order, same as a DOM attribute map
+        Map<String, String> attrs = new TreeMap<>();
+        int attrCount = reader.getAttributeCount();
+        for (int j = 0; j < attrCount; j++) {
+            QName name = reader.getAttributeName(j);
+            String prefix = name.getPrefix();
+            String key = prefix == null || prefix.isEmpty() ? name.getLocalPart() : prefix + ":" + name.getLocalPart();
+            attrs.put(key, reader.getAttributeValue(j));
+        }
+        for (Map.Entry<String, String> e : attrs.entrySet())
+            putResolved(e.getKey(), e.getValue());
+    }
+
+    /**
+     * Copy an attribute set
+     * The storage is shared until either set is modified.
+     * @param other Attribute set to copy
+     */
     public AttributeSet(AttributeSet other) {
-        super(other);
+        if (other.size == 0)
+            return;
+        this.ids = other.ids;
+        this.values = other.values;
+        this.refs = other.refs;
+        this.typed = other.typed;
+        this.size = other.size;
+        this.shared = other.shared = true;
     }
 
     public AttributeSet(AttributeSet other, String... keysToCopy) {
@@ -50,11 +116,322 @@ public class AttributeSet extends HashMap<String, String> {
             put(k, other.get(k));
     }
 
+    /**
+     * Get the symbol for an attribute name, interning it if needed
+     * @param name Attribute name
+     * @return Symbol ID
+     */
+    private static int intern(String name) {
+        Integer id = symbolIds.get(name);
+        if (id != null)
+            return id;
+        synchronized (symbolLock) {
+            id = symbolIds.get(name);
+            if (id == null) {
+                String[] names = symbolNames;
+                if (symbolCount == names.length)
+                    names = Arrays.copyOf(names, names.length * 2);
+                id = symbolCount++;
+                names[id] = name.intern();
+                symbolNames = names;
+                symbolIds.put(name, id);
+            }
+            return id;
+        }
+    }
+
+    private static String getSymbolName(int id) {
+        return symbolNames[id];
+    }
+
+    /**
+     * Find the index of an attribute
+     * @param key Attribute name
+     * @return Index or a negative value if not set
+     */
+    private int indexOf(Object key) {
+        Integer id = key instanceof String ? symbolIds.get(key) : null;
+        if (id == null || size == 0)
+            return -1;
+        return Arrays.binarySearch(ids, 0, size, id);
+    }
+
+    /**
+     * Find the index of an attribute, interning its name
+     * @param key Attribute name
+     * @return Index or (-(insertion point) - 1) if not set
+     */
+    private int insertionIndex(String key) {
+        return Arrays.binarySearch(ids, 0, size, intern(key));
+    }
+
+    /**
+     * Make sure the arrays are owned by this set and can hold one more attribute
+     * @param grow True if an attribute is about to be added
+     */
+    private void ensureWritable(boolean grow) {
+        checkFrozen();
+        int capacity = ids.length;
+        if (grow && size == capacity)
+            capacity = Math.max(4, capacity + (capacity >> 1));
+        else if (!shared)
+            return;
+        ids = Arrays.copyOf(ids, capacity);
+        values = Arrays.copyOf(values, capacity);
+        if (refs != null)
+            refs = Arrays.copyOf(refs, capacity);
+        if (typed != null)
+            typed = Arrays.copyOf(typed, capacity);
+        shared = false;
+    }
+
+    /**
+     * Set the value at an index, inserting a new attribute if the index is negative
+     * @return Previous value
+     */
+    private String set(int idx, String key, String value, String resKey) {
+        String old = null;
+        if (idx >= 0) {
+            ensureWritable(false);
+            old = values[idx];
+        } else {
+            ensureWritable(true);
+            idx = -(idx + 1);
+            int move = size - idx;
+            System.arraycopy(ids, idx, ids, idx + 1, move);
+            System.arraycopy(values, idx, values, idx + 1, move);
+            if (refs != null)
+                System.arraycopy(refs, idx, refs, idx + 1, move);
+            if (typed != null)
+                System.arraycopy(typed, idx, typed, idx + 1, move);
+            ids[idx] = intern(key);
+            size++;
+        }
+        values[idx] = value;
+        if (typed != null)
+            typed[idx] = null;
+        if (resKey != null && refs == null)
+            refs = new String[ids.length];
+        if (refs != null)
+            refs[idx] = resKey;
+        return old;
+    }
+
+    private void removeAt(int idx) {
+        ensureWritable(false);
+        int move = size - idx - 1;
+        System.arraycopy(ids, idx + 1, ids, idx, move);
+        System.arraycopy(values, idx + 1, values, idx, move);
+        if (refs != null)
+            System.arraycopy(refs, idx + 1, refs, idx, move);
+        if (typed != null)
+            System.arraycopy(typed, idx + 1, typed, idx, move);
+        size--;
+        values[size] = null;
+        if (refs != null)
+            refs[size] = null;
+        if (typed != null)
+            typed[size] = null;
+    }
+
+    /**
+     * Put an attribute, resolving any resource reference it contains
+     * Style references are expanded into their attributes
+     * @param key Attribute name
+     * @param value Attribute value or resource reference
+     */
+    public void putResolved(String key, String value) {
+        if (value.startsWith("@")) {
+            Object ref = ResourceMap.getResource(value.substring(1));
+            if (ref != null) {
+                if (ref instanceof String) {
+                    putReference(key, value.substring(1), (String) ref);
+                    return;
+                } else if (ref instanceof StyleResource) {
+                    StyleResource style = (StyleResource) ref;
+                    putAll(style.getResolvedAttributeSet());
+                }
+            }
+        }
+        put(key, value);
+    }
+
+    /**
+     * Put a value that was resolved from a resource reference
+     * Typed getters will use the pre-decoded resource value instead of parsing the string
+     * @param key Attribute name
+     * @param resKey Resource key (i.e. "color/white")
+     * @param value Resolved value
+     */
+    public void putReference(String key, String resKey, String value) {
+        if (value != null)
+            set(insertionIndex(key), key, value, resKey);
+    }
+
+    /**
+     * Get the pre-decoded resource value for an attribute
+     * @param idx Attribute index
+     * @param type Resource type prefix (i.e. "color/")
+     * @return Typed value or null if the attribute wasn't resolved from a reference of this type
+     */
+    private Object getTypedReference(int idx, String type) {
+        String resKey = refs != null ? refs[idx] : null;
+        if (resKey == null || !resKey.startsWith(type))
+            return null;
+
+        // Make sure the resource hasn't been reloaded since it was resolved
+        if (values[idx] != ResourceMap.getStringResource(resKey))
+            return null;
+        return ResourceMap.getTypedResource(resKey);
+    }
+
+    /**
+     * Get the cached parsed value for an attribute
+     * @param idx Attribute index
+     * @param kind Value kind
+     * @return Cached value or null if not parsed yet
+     */
+    private Typed getTyped(int idx, int kind) {
+        Typed[] typed = this.typed;
+        Typed t = typed != null ? typed[idx] : null;
+        return t != null && t.kind == kind ? t : null;
+    }
+
+    private void setTyped(int idx, int kind, int value) {
+        // Parsed values don't change the contents, so this is allowed on frozen and shared sets
+        if (typed == null)
+            typed = new Typed[ids.length];
+        typed[idx] = new Typed(kind, value);
+    }
+
+    /**
+     * Make this set read-only so it can be safely shared
+     * @return This attribute set
+     */
+    public AttributeSet freeze() {
+        this.frozen = true;
+        return this;
+    }
+
+    public boolean isFrozen() {
+        return this.frozen;
+    }
+
+    private void checkFrozen() {
+        if (frozen)
+            throw new UnsupportedOperationException("Attribute set is read-only");
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public String get(Object key) {
+        int idx = indexOf(key);
+        return idx >= 0 ? values[idx] : null;
+    }
+
     @Override
     public String put(String key, String value) {
         if (value == null)
             return null;
-        return super.put(key, value);
+        return set(insertionIndex(key), key, value, null);
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ? extends String> m) {
+        checkFrozen();
+        if (m instanceof AttributeSet) {
+            // Keep the resource references so typed lookups still work
+            AttributeSet other = (AttributeSet) m;
+            for (int i = 0; i < other.size; i++) {
+                int idx = Arrays.binarySearch(ids, 0, size, other.ids[i]);
+                set(idx, getSymbolName(other.ids[i]), other.values[i],
+                        other.refs != null ? other.refs[i] : null);
+            }
+        } else
+            super.putAll(m);
+    }
+
+    @Override
+    public String remove(Object key) {
+        checkFrozen();
+        int idx = indexOf(key);
+        if (idx < 0)
+            return null;
+        String old = values[idx];
+        removeAt(idx);
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        checkFrozen();
+        ids = NO_IDS;
+        values = NO_VALUES;
+        refs = null;
+        typed = null;
+        size = 0;
+        shared = false;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Entry<String, String>>() {
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    private class EntryIterator implements Iterator<Entry<String, String>> {
+
+        int next, last = -1;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public Entry<String, String> next() {
+            if (next >= size)
+                throw new NoSuchElementException();
+            last = next++;
+            String key = getSymbolName(ids[last]);
+            return new SimpleEntry<String, String>(key, values[last]) {
+                @Override
+                public String setValue(String value) {
+                    super.setValue(value);
+                    return put(key, value);
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0)
+                throw new IllegalStateException();
+            removeAt(last);
+            next = last;
+            last = -1;
+        }
     }
 
     public void setString(String key, String value) {
@@ -70,7 +447,8 @@ public class AttributeSet extends HashMap<String, String> {
     }
 
     public String getString(String key, String defVal) {
-        return containsKey(key) ? get(key) : defVal;
+        int idx = indexOf(key);
+        return idx >= 0 ? values[idx] : defVal;
     }
 
     public int getInteger(String key, int defVal) {
@@ -82,23 +460,61 @@ public class AttributeSet extends HashMap<String, String> {
     }
 
     public boolean getBoolean(String key, boolean defVal) {
-        String value = get(key);
-        return value != null ? Boolean.parseBoolean(value) : defVal;
+        int idx = indexOf(key);
+        if (idx < 0)
+            return defVal;
+        Object typed = getTypedReference(idx, "bool/");
+        if (typed instanceof Boolean)
+            return (Boolean) typed;
+        return Boolean.parseBoolean(values[idx]);
     }
 
     public Color getColor(String key, Color defVal) {
-        String value = get(key);
+        int idx = indexOf(key);
+        if (idx < 0)
+            return defVal;
+        Object ref = getTypedReference(idx, "color/");
+        if (ref instanceof Integer)
+            return new Color((Integer) ref, true);
 
         // Hex color code
+        Typed t = getTyped(idx, COLOR);
+        if (t != null)
+            return new Color(t.value, true);
         try {
-            return Color.decode(value);
+            Color color = Color.decode(values[idx]);
+            setTyped(idx, COLOR, color.getRGB());
+            return color;
         } catch (Exception e) {
             return defVal;
         }
     }
 
     public int getDimension(String key, int defVal) {
-        String value = get(key);
+        int idx = indexOf(key);
+        if (idx < 0)
+            return defVal;
+        Object ref = getTypedReference(idx, "dimen/");
+        if (ref instanceof Integer)
+            return (Integer) ref;
+
+        Typed t = getTyped(idx, DIMENSION);
+        if (t != null)
+            return t.value;
+        int dimen = parseDimension(values[idx], Integer.MIN_VALUE);
+        if (dimen == Integer.MIN_VALUE)
+            return defVal;
+        setTyped(idx, DIMENSION, dimen);
+        return dimen;
+    }
+
+    /**
+     * Parse a dimension value
+     * @param value Dimension string (i.e. "10px", "match_parent")
+     * @param defVal Value to return if parsing fails
+     * @return Dimension in pixels or one of the {@link LayoutParams} constants
+     */
+    public static int parseDimension(String value, int defVal) {
         if (value == null)
             return defVal;
 
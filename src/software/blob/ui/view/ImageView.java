@@ -1,6 +1,7 @@
 package software.blob.ui.view;
 
 import software.blob.ui.res.Resources;
+import software.blob.ui.res.ScaledImageCache;
 
 import java.awt.*;
 
@@ -62,13 +63,19 @@ public class ImageView extends View {
 
         // Update scaled version of the image if we need to
         // Scaling here gives much better results than using rendering hints
+        // The scaled images are shared with other views showing the same image at the same size
         if (this.scaled == null || this.scWidth != width || this.scHeight != height) {
-            this.scaled = image.getScaledInstance(width, height, Image.SCALE_SMOOTH | Image.SCALE_AREA_AVERAGING);
+            this.scaled = ScaledImageCache.getShared().getScaled(image, width, height,
+                    ScaledImageCache.Quality.SMOOTH, getGraphicsConfiguration());
             this.scWidth = width;
             this.scHeight = height;
+
+            // Scale again once an image which is still loading is ready
+            if (image.getWidth(null) < 0 || image.getHeight(null) < 0)
+                this.scaled = null;
         }
 
-        // Draw image
-        g.drawImage(this.scaled, padding.left, padding.top, width, height, null);
+        // Draw image (repainted as it loads if it isn't scaled)
+        g.drawImage(this.scaled != null ? this.scaled : image, padding.left, padding.top, width, height, this);
     }
 }
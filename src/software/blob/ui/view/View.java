@@ -181,6 +181,10 @@ public class View extends JComponent implements Scrollable, MouseListener {
                     parent.repaint(r.x, r.y, r.width, r.height);
                 }
                 revalidate();
+
+                // Visibility affects the parent's layout even if this view is a relayout boundary
+                if (isValidateRoot() && parent instanceof JComponent)
+                    ((JComponent) parent).revalidate();
             });
         }
     }
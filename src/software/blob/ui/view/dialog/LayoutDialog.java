@@ -13,6 +13,7 @@ import java.awt.*;
 import java.awt.event.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Dialog specifically tailored to {@link AbstractLayout}
@@ -56,6 +57,14 @@ public class LayoutDialog extends JDialog implements ActionListener, KeyListener
         this(window, true);
     }
 
+    /**
+     * Compile the dialog layout in the background so the dialog opens faster
+     * @return Future which completes once the layout is ready
+     */
+    public static CompletableFuture<Void> preload() {
+        return LayoutInflater.preload("layout_dialog");
+    }
+
     /**
      * Set the root view/layout of this dialog
      * @param c Root component
@@ -7,6 +7,7 @@ import software.blob.ui.view.layout.InflatedLayout;
 import software.blob.ui.view.layout.LayoutInflater;
 import software.blob.ui.view.layout.LinearLayout;
 import software.blob.ui.view.layout.list.ListAdapter;
+import software.blob.ui.view.layout.list.ListDiff;
 import software.blob.ui.view.layout.list.ListView;
 import software.blob.ui.view.listener.ClickListener;
 import software.blob.ui.view.listener.DoubleClickListener;
@@ -23,6 +24,7 @@ import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.prefs.Preferences;
 
 /**
@@ -53,6 +55,23 @@ public class FileBrowserDialog extends LayoutDialog implements ClickListener, Se
     protected static final Color SELECTED_COLOR = new Color(64, 64, 64);
     protected static final Color HOVER_COLOR = new Color(48, 48, 48);
 
+    // Row update payload for changes to the highlight or hover state only
+    private static final Object BACKGROUND_PAYLOAD = new Object();
+
+    // Compares file listings by path, then by the attributes shown in each row
+    private static final ListDiff.Callback<FileInfo> FILE_DIFF = new ListDiff.Callback<FileInfo>() {
+        @Override
+        public boolean areItemsTheSame(FileInfo oldItem, FileInfo newItem) {
+            return oldItem.file.equals(newItem.file);
+        }
+
+        @Override
+        public boolean areContentsTheSame(FileInfo oldItem, FileInfo newItem) {
+            return oldItem.isDir == newItem.isDir && oldItem.length == newItem.length
+                    && oldItem.lastModified == newItem.lastModified;
+        }
+    };
+
     // Views
     protected final ListView fileTable;
     protected final FileListAdapter fileAdapter;
@@ -120,6 +139,15 @@ public class FileBrowserDialog extends LayoutDialog implements ClickListener, Se
         setApproveButtonText("Open");
     }
 
+    /**
+     * Compile the file browser layouts in the background so the dialog opens faster
+     * Call this ahead of time, i.e. when the application starts
+     * @return Future which completes once the layouts are ready
+     */
+    public static CompletableFuture<Void> preload() {
+        return LayoutInflater.preload("layout_dialog", "file_browser_dialog", "file_browser_entry");
+    }
+
     /**
      * Set the singular file type filter for this dialog
      * @param filter Type filter
@@ -244,8 +272,10 @@ public class FileBrowserDialog extends LayoutDialog implements ClickListener, Se
      * @param file File
      */
     protected void highlight(File file) {
+        File previous = highlightFile;
         highlightFile = file;
-        fileAdapter.notifyDatasetChanged();
+        fileAdapter.notifyFileChanged(previous);
+        fileAdapter.notifyFileChanged(file);
     }
 
     /**
@@ -371,6 +401,7 @@ public class FileBrowserDialog extends LayoutDialog implements ClickListener, Se
 
     /**
      * Refresh the file list UI
+     * Only the rows for files which were added, removed or modified since the last refresh are updated.
      */
     protected void refreshFileList() {
         // Query files
@@ -385,12 +416,51 @@ public class FileBrowserDialog extends LayoutDialog implements ClickListener, Se
     private class FileListAdapter extends ListAdapter implements
             ClickListener, DoubleClickListener, HoverListener {
 
-        private final List<File> files = new ArrayList<>();
+        private List<FileInfo> files = new ArrayList<>();
+        private final Map<File, Integer> positions = new HashMap<>();
+
+        // Incremented per listing so an older diff finishing late is ignored
+        private int generation;
 
         void setFiles(List<File> files) {
-            this.files.clear();
-            this.files.addAll(files);
-            notifyDatasetChanged();
+            int gen = ++generation;
+            List<FileInfo> oldInfos = this.files;
+            if (oldInfos.size() + files.size() < ListDiff.ASYNC_THRESHOLD) {
+                List<FileInfo> infos = getFileInfo(files);
+                applyFiles(gen, infos, ListDiff.calculate(oldInfos, infos, FILE_DIFF));
+                return;
+            }
+
+            // Large listings are stat'ed and diffed in the background
+            CompletableFuture.supplyAsync(() -> getFileInfo(files)).thenAccept(infos -> {
+                ListDiff.Result diff = ListDiff.calculate(oldInfos, infos, FILE_DIFF);
+                SwingUtilities.invokeLater(() -> applyFiles(gen, infos, diff));
+            });
+        }
+
+        private void applyFiles(int gen, List<FileInfo> infos, ListDiff.Result diff) {
+            if (gen == generation) {
+                this.files = infos;
+                positions.clear();
+                for (int i = 0; i < infos.size(); i++)
+                    positions.put(infos.get(i).file, i);
+                diff.dispatchUpdatesTo(this);
+            }
+        }
+
+        /**
+         * Update the row background for a file
+         * @param file File (ignored if null or not listed)
+         */
+        void notifyFileChanged(File file) {
+            int position = indexOf(file);
+            if (position >= 0)
+                notifyItemChanged(position, BACKGROUND_PAYLOAD);
+        }
+
+        int indexOf(File file) {
+            Integer position = file != null ? positions.get(file) : null;
+            return position != null ? position : -1;
         }
 
         @Override
@@ -400,7 +470,7 @@ public class FileBrowserDialog extends LayoutDialog implements ClickListener, Se
 
         @Override
         public File getItem(int position) {
-            return files.get(position);
+            return files.get(position).file;
         }
 
         @Override
@@ -423,18 +493,33 @@ public class FileBrowserDialog extends LayoutDialog implements ClickListener, Se
                 row.setOnHoverListener(this);
             }
 
-            File file = h.file = getItem(position);
-            boolean isDir = file.isDirectory();
-            h.icon.setImage(getFileIcon(file, isDir));
+            FileInfo info = files.get(position);
+            File file = h.file = info.file;
+            h.icon.setImage(getFileIcon(file, info.isDir));
             h.name.setText(file.getName());
-            h.size.setText(isDir ? "" : readableFileSize(file.length()) + "   ");
-            h.date.setText(DATE_FORMAT.format(file.lastModified()));
-            row.setBackground(highlightFile == file ? SELECTED_COLOR
-                    : (hoverFile == file ? HOVER_COLOR : null));
+            h.size.setText(info.isDir ? "" : readableFileSize(info.length) + "   ");
+            h.date.setText(DATE_FORMAT.format(info.lastModified));
+            setBackground(h);
 
             return row;
         }
 
+        @Override
+        public View getView(int position, View existing, ListView list, List<Object> payloads) {
+            RowHolder h = getRowHolder(existing);
+            if (h == null || !h.file.equals(getItem(position)) || !payloads.contains(BACKGROUND_PAYLOAD))
+                return getView(position, existing, list);
+
+            // Only the highlight or hover state changed
+            setBackground(h);
+            return existing;
+        }
+
+        private void setBackground(RowHolder h) {
+            h.root.setBackground(h.file.equals(highlightFile) ? SELECTED_COLOR
+                    : (h.file.equals(hoverFile) ? HOVER_COLOR : null));
+        }
+
         @Override
         public void onClick(View view, MouseEvent event) {
             RowHolder h = getRowHolder(view);
@@ -455,8 +540,10 @@ public class FileBrowserDialog extends LayoutDialog implements ClickListener, Se
         public void onHoverStart(View view, MouseEvent event) {
             RowHolder row = getRowHolder(view);
             if (row != null) {
+                File previous = hoverFile;
                 hoverFile = row.file;
-                fileAdapter.notifyDatasetChanged();
+                notifyFileChanged(previous);
+                notifyFileChanged(hoverFile);
             }
         }
 
@@ -464,18 +551,41 @@ public class FileBrowserDialog extends LayoutDialog implements ClickListener, Se
         public void onHoverEnd(View view, MouseEvent event) {
             RowHolder row = getRowHolder(view);
             if (row != null) {
-                if (row.file == hoverFile)
+                if (row.file.equals(hoverFile))
                     hoverFile = null;
-                fileAdapter.notifyDatasetChanged();
+                notifyFileChanged(row.file);
             }
         }
 
         private RowHolder getRowHolder(View view) {
-            Object tag = view.getTag();
+            Object tag = view != null ? view.getTag() : null;
             return tag instanceof RowHolder ? (RowHolder) tag : null;
         }
     }
 
+    /**
+     * File attributes shown in a row, read when the directory is listed
+     */
+    private static List<FileInfo> getFileInfo(List<File> files) {
+        List<FileInfo> infos = new ArrayList<>(files.size());
+        for (File file : files)
+            infos.add(new FileInfo(file));
+        return infos;
+    }
+
+    private static class FileInfo {
+        final File file;
+        final boolean isDir;
+        final long length, lastModified;
+
+        FileInfo(File file) {
+            this.file = file;
+            this.isDir = file.isDirectory();
+            this.length = isDir ? 0 : file.length();
+            this.lastModified = file.lastModified();
+        }
+    }
+
     private static class RowHolder {
         File file;
         LinearLayout root;
@@ -600,13 +710,12 @@ public class FileBrowserDialog extends LayoutDialog implements ClickListener, Se
         switch (kc) {
             case KeyEvent.VK_UP:
             case KeyEvent.VK_DOWN: {
-                List<File> files = fileAdapter.files;
-                int idx = files.indexOf(highlightFile);
+                int idx = fileAdapter.indexOf(highlightFile);
                 if (idx == -1)
                     break;
-                int newIdx = Math.min(Math.max(idx + (kc == KeyEvent.VK_UP ? -1 : 1), 0), files.size() - 1);
+                int newIdx = Math.min(Math.max(idx + (kc == KeyEvent.VK_UP ? -1 : 1), 0), fileAdapter.getCount() - 1);
                 if (newIdx != idx) {
-                    highlight(files.get(newIdx));
+                    highlight(fileAdapter.getItem(newIdx));
                     fileTable.scrollToPosition(newIdx);
                 }
                 break;
@@ -17,6 +17,9 @@ import java.util.Map;
  */
 public abstract class AbstractLayout extends View implements Scrollable, PropertyChangeListener {
 
+    // Relayout boundary being invalidated on the current thread
+    private static final ThreadLocal<AbstractLayout> invalidatingBoundary = new ThreadLocal<>();
+
     protected boolean bulkOperation;
 
     // Map child name -> child - see findChildByName()
@@ -83,6 +86,57 @@ public abstract class AbstractLayout extends View implements Scrollable, Propert
             ((LayoutManager2) lm).invalidateLayout(this);
     }
 
+    /**
+     * Check if this layout is a relayout boundary
+     * A layout with a fixed pixel width and height can't change size when its content changes,
+     * so changes inside it are laid out locally without re-measuring its ancestors.
+     * @return True if relayout boundary
+     */
+    public boolean isRelayoutBoundary() {
+        LayoutParams lp = getLayoutParams();
+        Container parent = getParent();
+        return lp != null && lp.width >= 0 && lp.height >= 0
+                && !(parent instanceof AbstractLayout && ((AbstractLayout) parent).overridesChildSize());
+    }
+
+    /**
+     * Check if this layout sizes its children based on more than their layout parameters
+     * Children of such a layout are never relayout boundaries.
+     * @return True if child sizes are overridden
+     */
+    protected boolean overridesChildSize() {
+        return false;
+    }
+
+    /**
+     * Check if this layout is an ancestor of the relayout boundary currently being invalidated
+     * @return True if the invalidation doesn't affect this layout
+     */
+    public boolean isAboveRelayoutBoundary() {
+        AbstractLayout boundary = invalidatingBoundary.get();
+        return boundary != null && boundary != this && isAncestorOf(boundary);
+    }
+
+    @Override
+    public boolean isValidateRoot() {
+        // Revalidation of descendants only needs to lay out this subtree
+        return isRelayoutBoundary() || super.isValidateRoot();
+    }
+
+    @Override
+    public void invalidate() {
+        if (invalidatingBoundary.get() != null || !isRelayoutBoundary()) {
+            super.invalidate();
+            return;
+        }
+        invalidatingBoundary.set(this);
+        try {
+            super.invalidate();
+        } finally {
+            invalidatingBoundary.remove();
+        }
+    }
+
     /**
      * Set gravity flags
      * @param gravity Gravity flags
@@ -0,0 +1,89 @@
+package software.blob.ui.view.layout;
+
+import software.blob.ui.view.AttributeSet;
+import software.blob.ui.view.View;
+
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Tool that measures the footprint of {@link AttributeSet}s in a large inflated tree
+ *
+ * A layout is inflated many times, then the attribute sets of every inflated view are copied
+ * three ways and the heap retained by each set of copies is reported per attribute set:
+ * - Shared: copies that share their storage with the original (i.e. an inflated view)
+ * - Private: the same copies after a write, which gives each of them its own arrays
+ * - HashMap: plain map copies, for comparison with map based storage
+ *
+ * Run with a fixed heap (i.e. -Xms512m -Xmx512m) for steadier numbers.
+ *
+ * Usage: AttributeSetBenchmark [layout name] [tree count] (defaults to file_browser_dialog 500)
+ */
+public class AttributeSetBenchmark {
+
+    public static void main(String[] args) {
+        String name = args.length > 0 ? args[0] : "file_browser_dialog";
+        int treeCount = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+        // Compile the layout first so the plan isn't counted with the trees
+        if (LayoutInflater.inflate(name).getRoot() == null) {
+            System.err.println("Layout not found: " + name);
+            System.exit(1);
+        }
+
+        List<Component> trees = new ArrayList<>(treeCount);
+        long before = LayoutMemoryBenchmark.getUsedMemory();
+        for (int i = 0; i < treeCount; i++)
+            trees.add(LayoutInflater.inflate(name).getRoot());
+        long treeBytes = LayoutMemoryBenchmark.getUsedMemory() - before;
+
+        List<AttributeSet> sets = new ArrayList<>();
+        for (Component tree : trees)
+            collect(tree, sets);
+        if (sets.isEmpty()) {
+            System.err.println("No attribute sets in layout: " + name);
+            System.exit(1);
+        }
+        long attrCount = 0;
+        for (AttributeSet attrs : sets)
+            attrCount += attrs.size();
+
+        System.out.printf("%,d trees of %s: %,d bytes per tree, %,d attribute sets, %.1f attributes per set%n",
+                treeCount, name, treeBytes / treeCount, sets.size(), (double) attrCount / sets.size());
+
+        // Copies sharing storage with the inflated views
+        List<AttributeSet> copies = new ArrayList<>(sets.size());
+        before = LayoutMemoryBenchmark.getUsedMemory();
+        for (AttributeSet attrs : sets)
+            copies.add(new AttributeSet(attrs));
+        long sharedBytes = LayoutMemoryBenchmark.getUsedMemory() - before;
+
+        // Writing an attribute gives the copy its own arrays
+        for (AttributeSet copy : copies) {
+            if (copy.isEmpty())
+                continue;
+            Map.Entry<String, String> first = copy.entrySet().iterator().next();
+            copy.put(first.getKey(), first.getValue());
+        }
+        long privateBytes = LayoutMemoryBenchmark.getUsedMemory() - before;
+
+        List<Map<String, String>> maps = new ArrayList<>(sets.size());
+        before = LayoutMemoryBenchmark.getUsedMemory();
+        for (AttributeSet attrs : sets)
+            maps.add(new HashMap<>(attrs));
+        long mapBytes = LayoutMemoryBenchmark.getUsedMemory() - before;
+
+        System.out.printf("Per attribute set: shared %,d bytes, private %,d bytes, HashMap %,d bytes%n",
+                sharedBytes / sets.size(), privateBytes / sets.size(), mapBytes / sets.size());
+    }
+
+    private static void collect(Component c, List<AttributeSet> sets) {
+        if (c instanceof View && ((View) c).getAttributes() != null)
+            sets.add(((View) c).getAttributes());
+        if (c instanceof Container) {
+            for (Component child : ((Container) c).getComponents())
+                collect(child, sets);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package software.blob.ui.view.layout;
+
+import software.blob.ui.view.AttributeSet;
+
+/**
+ * Builds the component tree for a single layout without reading any XML
+ * Implementations are normally produced by {@link LayoutFactoryGenerator} and are
+ * picked up by {@link LayoutInflater} through {@link java.util.ServiceLoader}
+ */
+public interface LayoutFactory {
+
+    /**
+     * Get the name of the layout file this factory replaces
+     * @return Layout file name including the .xml extension
+     */
+    String getLayoutName();
+
+    /**
+     * Create a new instance of the layout
+     * @param rootAttrs Root attributes override (null to ignore)
+     * @return Inflated layout
+     */
+    InflatedLayout inflate(AttributeSet rootAttrs);
+}
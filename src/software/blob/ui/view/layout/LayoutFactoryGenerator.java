@@ -0,0 +1,356 @@
+package software.blob.ui.view.layout;
+
+import software.blob.ui.util.Log;
+import software.blob.ui.view.AttributeSet;
+
+import javax.lang.model.SourceVersion;
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Build-time tool that converts layout XML files into plain Java {@link LayoutFactory} classes
+ *
+ * Each generated class extends {@link InflatedLayout}, builds the component tree using direct
+ * constructor and setter calls, and exposes every named component as a typed field.
+ * A service file is also written so {@link LayoutInflater} prefers the generated classes
+ * once they're on the classpath.
+ *
+ * Usage: LayoutFactoryGenerator [output source dir] [package name] [layout dir (optional)]
+ */
+public class LayoutFactoryGenerator {
+
+    private final String packageName;
+    private final File outputDir;
+
+    public LayoutFactoryGenerator(File outputDir, String packageName) {
+        this.outputDir = outputDir;
+        this.packageName = packageName;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: LayoutFactoryGenerator <output source dir> <package name> [layout dir]");
+            System.exit(1);
+        }
+
+        File layoutDir = args.length > 2 ? new File(args[2]) : new File("./res/layout");
+        File[] files = layoutDir.listFiles();
+        if (files == null) {
+            System.err.println("Failed to list layout directory: " + layoutDir);
+            System.exit(1);
+        }
+
+        List<String> layouts = new ArrayList<>();
+        for (File f : files) {
+            if (f.getName().endsWith(".xml"))
+                layouts.add(f.getName());
+        }
+        Collections.sort(layouts);
+
+        new LayoutFactoryGenerator(new File(args[0]), args[1]).generate(layouts);
+    }
+
+    /**
+     * Generate factory classes and the service registration file
+     * @param layouts Layout file names
+     * @throws IOException Failed to write output
+     */
+    public void generate(List<String> layouts) throws IOException {
+        File pkgDir = new File(outputDir, packageName.replace('.', File.separatorChar));
+        if (!pkgDir.isDirectory() && !pkgDir.mkdirs())
+            throw new IOException("Failed to create directory: " + pkgDir);
+
+        List<String> factoryNames = new ArrayList<>();
+        for (String layout : layouts) {
+            LayoutPlan plan = LayoutInflater.getPlan(layout);
+            if (plan == null)
+                continue;
+            String className = getClassName(plan.getName());
+            try (PrintWriter pw = new PrintWriter(new File(pkgDir, className + ".java"), "UTF-8")) {
+                pw.print(generate(plan, className));
+            }
+            factoryNames.add(packageName + "." + className + "$Factory");
+            Log.d("Generated " + className + " from " + plan.getName());
+        }
+
+        File servicesDir = new File(outputDir, "META-INF/services");
+        if (!servicesDir.isDirectory() && !servicesDir.mkdirs())
+            throw new IOException("Failed to create directory: " + servicesDir);
+        try (PrintWriter pw = new PrintWriter(new File(servicesDir, LayoutFactory.class.getName()),
+                StandardCharsets.UTF_8.name())) {
+            for (String name : factoryNames)
+                pw.println(name);
+        }
+    }
+
+    /**
+     * Generate the source code for a single layout
+     * @param plan Compiled layout
+     * @param className Simple class name
+     * @return Java source code
+     */
+    public String generate(LayoutPlan plan, String className) {
+        Builder b = new Builder();
+        for (LayoutPlan.Node node : plan.getRoots())
+            b.node(node, null, null, true);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(packageName).append(";\n\n");
+        sb.append("import ").append(AttributeSet.class.getName()).append(";\n");
+        sb.append("import ").append(InflatedLayout.class.getName()).append(";\n");
+        sb.append("import ").append(LayoutFactory.class.getName()).append(";\n");
+        sb.append("import ").append(LayoutInflater.class.getName()).append(";\n");
+        sb.append("import ").append(LayoutParams.class.getName()).append(";\n\n");
+        sb.append("/**\n * Generated from ").append(plan.getName())
+                .append(" by ").append(LayoutFactoryGenerator.class.getSimpleName())
+                .append(" - do not edit\n */\n");
+        sb.append("@SuppressWarnings({\"rawtypes\", \"unchecked\"})\n");
+        sb.append("public class ").append(className).append(" extends InflatedLayout {\n\n");
+        sb.append("    public static final String LAYOUT_NAME = ").append(literal(plan.getName())).append(";\n\n");
+        for (String field : b.fields)
+            sb.append("    public final ").append(field).append(";\n");
+        sb.append("\n    public ").append(className).append("(AttributeSet rootAttrs) {\n");
+        sb.append("        super(LAYOUT_NAME);\n");
+        sb.append(b.body);
+        sb.append("    }\n\n");
+        sb.append("    public ").append(className).append("() {\n");
+        sb.append("        this(null);\n");
+        sb.append("    }\n\n");
+        sb.append("    public static class Factory implements LayoutFactory {\n\n");
+        sb.append("        @Override\n");
+        sb.append("        public String getLayoutName() {\n");
+        sb.append("            return LAYOUT_NAME;\n");
+        sb.append("        }\n\n");
+        sb.append("        @Override\n");
+        sb.append("        public InflatedLayout inflate(AttributeSet rootAttrs) {\n");
+        sb.append("            return new ").append(className).append("(rootAttrs);\n");
+        sb.append("        }\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Emits the statements for each node in the same order {@link LayoutInflater} performs them
+     */
+    private static class Builder {
+
+        final List<String> fields = new ArrayList<>();
+        final StringBuilder body = new StringBuilder();
+        final Set<String> fieldNames = new HashSet<>();
+        boolean hasRoot;
+        int counter;
+
+        void node(LayoutPlan.Node node, String parentVar, Class<?> parentClass, boolean top) {
+            int id = counter++;
+            String aVar = "a" + id, lpVar = "lp" + id, vVar = "v" + id;
+            AttributeSet attrs = node.getAttributes();
+
+            // Attributes are already resolved in the plan
+            line("AttributeSet " + aVar + " = new AttributeSet();");
+            for (Map.Entry<String, String> e : new TreeMap<>(attrs).entrySet())
+                line(aVar + ".put(" + literal(e.getKey()) + ", " + literal(e.getValue()) + ");");
+            if (top)
+                line("if (rootAttrs != null) " + aVar + ".putAll(rootAttrs);");
+            line("LayoutParams " + lpVar + " = new LayoutParams(" + aVar + ");");
+
+            Class<?> viewClass = node.getViewClass();
+            String type;
+            if (node.isInclude()) {
+                type = "java.awt.Component";
+                line(type + " " + vVar + " = LayoutInflater.inflate(" + literal(node.getInclude())
+                        + ", " + aVar + ").getRoot();");
+            } else if (viewClass == null) {
+                // Custom factory, so the concrete type is only known at runtime
+                type = "java.awt.Component";
+                line(type + " " + vVar + " = LayoutInflater.createView(" + literal(node.getTag())
+                        + ", " + aVar + ");");
+                line("if (" + vVar + " instanceof " + AbstractLayout.class.getName() + ")");
+                line("    ((" + AbstractLayout.class.getName() + ") " + vVar + ").setLayoutParams(" + lpVar + ");");
+            } else {
+                type = viewClass.getCanonicalName();
+                if (node.hasAttributesConstructor())
+                    line(type + " " + vVar + " = new " + type + "(" + aVar + ");");
+                else {
+                    line(type + " " + vVar + " = new " + type + "();");
+                    setters(vVar, viewClass, attrs, top ? aVar : null);
+                }
+                if (AbstractLayout.class.isAssignableFrom(viewClass))
+                    line(vVar + ".setLayoutParams(" + lpVar + ");");
+            }
+
+            if (parentVar != null) {
+                if (parentClass == null)
+                    line("LayoutInflater.addChild((java.awt.Container) " + parentVar + ", " + vVar + ", " + lpVar + ");");
+                else if (AbstractLayout.class.isAssignableFrom(parentClass))
+                    line(parentVar + ".add(" + vVar + ", " + lpVar + ");");
+                else if (ScrollLayout.class.isAssignableFrom(parentClass))
+                    line(parentVar + ".setViewportView(" + vVar + ");");
+                else
+                    line(parentVar + ".add(" + vVar + ");");
+            }
+
+            if (viewClass != null && Container.class.isAssignableFrom(viewClass)) {
+                for (LayoutPlan.Node child : node.getChildren())
+                    node(child, vVar, viewClass, false);
+                if (AbstractLayout.class.isAssignableFrom(viewClass))
+                    line(vVar + ".onFinishInflate(this);");
+            } else if (node.isInclude() || viewClass == null) {
+                for (LayoutPlan.Node child : node.getChildren())
+                    node(child, vVar, null, false);
+                line("if (" + vVar + " instanceof " + AbstractLayout.class.getName() + ")");
+                line("    ((" + AbstractLayout.class.getName() + ") " + vVar + ").onFinishInflate(this);");
+            }
+
+            if (top) {
+                line("setRoot(" + vVar + ");");
+                if (!hasRoot) {
+                    fields.add(type + " root");
+                    fieldNames.add("root");
+                    line("this.root = " + vVar + ";");
+                    hasRoot = true;
+                }
+            }
+
+            // Named components are exposed as typed fields
+            String name = attrs.getString("name", null);
+            if (name != null && !name.isEmpty() && !node.isInclude()) {
+                String field = getFieldName(name);
+                if (fieldNames.add(field)) {
+                    fields.add(type + " " + field);
+                    line("this." + field + " = " + vVar + ";");
+                }
+            }
+
+            line("addComponent(" + vVar + ");");
+        }
+
+        /**
+         * Resolve setters for components without an {@link AttributeSet} constructor
+         * Values are converted at generation time unless they may be overridden by root attributes
+         */
+        void setters(String vVar, Class<?> viewClass, AttributeSet attrs, String runtimeAttrs) {
+            ViewBinding binding = ViewBinding.get(viewClass);
+            for (String key : new TreeSet<>(attrs.keySet())) {
+                ViewBinding.Setter setter = binding.getSetter(key);
+                if (setter == null)
+                    continue;
+                String arg;
+                if (runtimeAttrs != null)
+                    arg = runtimeArgument(runtimeAttrs, key, setter.argument);
+                else
+                    arg = constantArgument(setter.argument.read(attrs, key));
+                line(vVar + "." + setter.method.getName() + "(" + arg + ");");
+            }
+        }
+
+        void line(String code) {
+            body.append("        ").append(code).append('\n');
+        }
+
+        String getFieldName(String name) {
+            StringBuilder sb = new StringBuilder();
+            boolean upper = false;
+            for (char c : name.toCharArray()) {
+                if (!Character.isJavaIdentifierPart(c) || c == '_') {
+                    upper = sb.length() > 0;
+                    continue;
+                }
+                sb.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+            if (sb.length() == 0 || !Character.isJavaIdentifierStart(sb.charAt(0)))
+                sb.insert(0, '_');
+            String field = sb.toString();
+            return SourceVersion.isKeyword(field) ? field + "_" : field;
+        }
+    }
+
+    private static String runtimeArgument(String attrsVar, String key, ViewBinding.Argument argument) {
+        String k = literal(key);
+        switch (argument) {
+            case BOOLEAN:
+                return attrsVar + ".getBoolean(" + k + ", false)";
+            case INT:
+                return attrsVar + ".getDimension(" + k + ", 0)";
+            case FLOAT:
+                return attrsVar + ".getFloat(" + k + ", 0f)";
+            case COLOR:
+                return attrsVar + ".getColor(" + k + ", java.awt.Color.WHITE)";
+            default:
+                return attrsVar + ".getString(" + k + ", null)";
+        }
+    }
+
+    private static String constantArgument(Object value) {
+        if (value instanceof Color) {
+            Color c = (Color) value;
+            return "new java.awt.Color(" + c.getRed() + ", " + c.getGreen() + ", "
+                    + c.getBlue() + ", " + c.getAlpha() + ")";
+        }
+        if (value instanceof Float)
+            return value + "f";
+        if (value instanceof String)
+            return literal((String) value);
+        return String.valueOf(value);
+    }
+
+    /**
+     * Convert a layout file name to a class name (i.e. file_browser_entry.xml -> FileBrowserEntryLayout)
+     * @param layoutName Layout file name
+     * @return Class name
+     */
+    public static String getClassName(String layoutName) {
+        if (layoutName.endsWith(".xml"))
+            layoutName = layoutName.substring(0, layoutName.length() - 4);
+        StringBuilder sb = new StringBuilder();
+        boolean upper = true;
+        for (char c : layoutName.toCharArray()) {
+            if (!Character.isJavaIdentifierPart(c) || c == '_') {
+                upper = true;
+                continue;
+            }
+            sb.append(upper ? Character.toUpperCase(c) : c);
+            upper = false;
+        }
+        if (sb.length() == 0 || !Character.isJavaIdentifierStart(sb.charAt(0)))
+            sb.insert(0, '_');
+        return sb.append("Layout").toString();
+    }
+
+    private static String literal(String value) {
+        if (value == null)
+            return "null";
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c > 0x7e)
+                        sb.append(String.format("\\u%04x", (int) c));
+                    else
+                        sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
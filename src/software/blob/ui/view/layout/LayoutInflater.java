@@ -1,18 +1,28 @@
 package software.blob.ui.view.layout;
 
+import software.blob.ui.res.ResourcePack;
 import software.blob.ui.res.Resources;
+import software.blob.ui.res.UsageProfile;
 import software.blob.ui.util.Log;
 import software.blob.ui.view.AttributeSet;
-import org.w3c.dom.*;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import javax.swing.SwingUtilities;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.awt.*;
 import java.io.File;
 import java.io.InputStream;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Convert a layout XML file to GUI code
@@ -20,7 +30,7 @@ import java.util.*;
 public class LayoutInflater {
 
     private static final File LAYOUT_DIR = new File("./res/layout");
-    private static final Set<String> PACKAGE_ROOTS = new HashSet<>(Arrays.asList(
+    private static final ViewFactoryRegistry viewFactories = new ViewFactoryRegistry(
             // Default package roots
             "software.blob.ui.view",
             "software.blob.ui.view.layout",
@@ -28,20 +38,88 @@ public class LayoutInflater {
             "software.blob.ui.view.layout.list",
             "software.blob.ui.view.menu",
             "javax.swing"
-    ));
+    );
 
-    // Cache layout XML, so we don't have to deserialize over and over
-    private static final Map<String, Document> xmlCache = new HashMap<>();
+    // Compiled layouts, so we don't have to walk the XML over and over
+    private static final Map<String, LayoutPlan> planCache = new ConcurrentHashMap<>();
 
-    // Cached base name -> class
-    private static final Map<String, Class<?>> baseNameCache = new HashMap<>();
+    // Generated layout factories (see LayoutFactoryGenerator)
+    private static final Map<String, LayoutFactory> factories = new ConcurrentHashMap<>();
+    private static volatile boolean factoriesLoaded;
+
+    // Executor used for asynchronous inflation (created on first use unless set)
+    private static volatile Executor executor;
 
     /**
      * Register a package root for finding layout classes from their base name
      * @param packageRoot Package root
      */
     public static void addPackageRoot(String packageRoot) {
-        PACKAGE_ROOTS.add(packageRoot);
+        viewFactories.addPackageRoot(packageRoot);
+    }
+
+    /**
+     * Register a factory for creating the component of a layout tag
+     * @param tag Tag name used in layout XML
+     * @param factory View factory
+     */
+    public static void registerViewFactory(String tag, ViewFactory factory) {
+        viewFactories.register(tag, factory);
+    }
+
+    /**
+     * Get the registry used to map layout tags to view factories
+     * @return View factory registry
+     */
+    public static ViewFactoryRegistry getViewFactoryRegistry() {
+        return viewFactories;
+    }
+
+    /**
+     * Create the component for a layout tag
+     * @param tag Tag name
+     * @param attrs Resolved attributes
+     * @return New component or null if the tag is unknown or creation failed
+     */
+    public static Component createView(String tag, AttributeSet attrs) {
+        ViewFactory factory = viewFactories.get(tag);
+        if (factory == null) {
+            Log.e("Failed to find Component class " + tag);
+            return null;
+        }
+        return factory.create(attrs);
+    }
+
+    /**
+     * Register a factory to use in place of the layout XML
+     * @param factory Layout factory
+     */
+    public static void addLayoutFactory(LayoutFactory factory) {
+        factories.put(factory.getLayoutName(), factory);
+    }
+
+    /**
+     * Set the executor used by {@link #inflateAsync(String, AttributeSet)}
+     * @param exec Executor or null to use the default background threads
+     */
+    public static void setExecutor(Executor exec) {
+        executor = exec;
+    }
+
+    /**
+     * Get the executor used for asynchronous inflation
+     * @return Executor
+     */
+    public static Executor getExecutor() {
+        Executor exec = executor;
+        if (exec == null) {
+            synchronized (LayoutInflater.class) {
+                if (executor == null)
+                    executor = createDefaultExecutor();
+                exec = executor;
+            }
+        }
+        return exec;
     }
 
     /**
@@ -51,32 +129,107 @@ public class LayoutInflater {
      * @return Inflated layout or null if not found/failed
      */
     public static InflatedLayout inflate(String xmlName, AttributeSet attrs) {
+        return inflate(xmlName, attrs, null);
+    }
+
+    /**
+     * Inflate an XML layout to usable components
+     * @param xmlName XML file name (may omit .xml)
+     * @return Inflated layout or null if not found/failed
+     */
+    public static InflatedLayout inflate(String xmlName) {
+        return inflate(xmlName, null);
+    }
+
+    /**
+     * Inflate an XML layout in the background
+     * Parsing, attribute resolution and component construction are performed on the
+     * inflater executor. The components aren't attached to anything, so the remaining
+     * {@link AbstractLayout#onFinishInflate(InflatedLayout)} calls are made on the event dispatch
+     * thread, which is also where the returned future completes.
+     * @param xmlName XML file name (may omit .xml)
+     * @param attrs Root attributes override (null to ignore)
+     * @return Future inflated layout
+     */
+    public static CompletableFuture<InflatedLayout> inflateAsync(String xmlName, AttributeSet attrs) {
+        List<Runnable> finishers = new ArrayList<>();
+        return CompletableFuture.supplyAsync(() -> inflate(xmlName, attrs, finishers), getExecutor())
+                .thenApplyAsync(inf -> {
+                    for (Runnable r : finishers)
+                        r.run();
+                    return inf;
+                }, SwingUtilities::invokeLater);
+    }
+
+    /**
+     * Inflate an XML layout in the background
+     * @param xmlName XML file name (may omit .xml)
+     * @return Future inflated layout
+     */
+    public static CompletableFuture<InflatedLayout> inflateAsync(String xmlName) {
+        return inflateAsync(xmlName, null);
+    }
+
+    /**
+     * Compile layouts in the background so later inflations on the event dispatch
+     * thread only need to construct components
+     * @param xmlNames XML file names (may omit .xml)
+     * @return Future which completes once all layouts (and their includes) are compiled
+     */
+    public static CompletableFuture<Void> preload(String... xmlNames) {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[xmlNames.length];
+        for (int i = 0; i < xmlNames.length; i++) {
+            String xmlName = xmlNames[i];
+            futures[i] = CompletableFuture.runAsync(() -> preload(getPlan(xmlName)), getExecutor());
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    private static void preload(LayoutPlan plan) {
+        if (plan != null)
+            preload(plan.getRoots());
+    }
+
+    private static void preload(List<LayoutPlan.Node> nodes) {
+        for (LayoutPlan.Node node : nodes) {
+            if (node.isInclude())
+                preload(getPlan(node.getInclude()));
+            else
+                preload(node.getChildren());
+        }
+    }
+
+    /**
+     * Inflate a layout, optionally deferring the finish inflate callbacks
+     * @param xmlName XML file name (may omit .xml)
+     * @param attrs Root attributes override (null to ignore)
+     * @param finishers List to add deferred callbacks to (null to call them immediately)
+     * @return Inflated layout
+     */
+    private static InflatedLayout inflate(String xmlName, AttributeSet attrs, List<Runnable> finishers) {
         if (!xmlName.endsWith(".xml"))
             xmlName = xmlName + ".xml";
 
-        InflatedLayout inf = new InflatedLayout(xmlName);
-
-        Document doc = xmlCache.get(xmlName);
-        if (doc == null) {
-            File xmlFile = new File(LAYOUT_DIR, xmlName);
-            try (InputStream is = Resources.getResourceStream(xmlFile)){
-                // Deserialize XML document
-                DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-                DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-                doc = dBuilder.parse(is);
-                doc.getDocumentElement().normalize();
+        // Prefer generated code over the XML
+        // Generated code calls onFinishInflate itself, so deferred callbacks need the plan
+        LayoutFactory factory = finishers == null ? getFactory(xmlName) : null;
+        if (factory != null) {
+            try {
+                return factory.inflate(attrs);
             } catch (Exception e) {
-                Log.e("Failed to find XML layout named " + xmlName, e);
-                return inf;
+                Log.e("Failed to inflate layout using " + factory.getClass().getName(), e);
             }
         }
 
+        InflatedLayout inf = new InflatedLayout(xmlName);
+
+        LayoutPlan plan = getPlan(xmlName);
+        if (plan == null)
+            return inf;
+
         try {
             // Build component hierarchy
-            inflate(inf, null, doc, attrs);
-
-            // Cache document
-            xmlCache.put(xmlName, doc);
+            inflate(inf, null, plan.getRoots(), attrs, finishers);
         } catch (Exception e) {
             Log.e("Failed to inflate layout named" + xmlName, e);
         }
@@ -85,62 +238,323 @@ public class LayoutInflater {
     }
 
     /**
-     * Inflate an XML layout to usable components
+     * Get the compiled plan for a layout, reading and compiling the XML if it isn't cached yet
      * @param xmlName XML file name (may omit .xml)
-     * @return Inflated layout or null if not found/failed
+     * @return Layout plan or null if not found/failed
      */
-    public static InflatedLayout inflate(String xmlName) {
-        return inflate(xmlName, null);
+    public static LayoutPlan getPlan(String xmlName) {
+        if (!xmlName.endsWith(".xml"))
+            xmlName = xmlName + ".xml";
+        UsageProfile.record(UsageProfile.Type.LAYOUT, xmlName);
+
+        // Layouts may occasionally be compiled twice if requested from multiple threads at once,
+        // which is harmless since plans are immutable
+        LayoutPlan plan = planCache.get(xmlName);
+        if (plan != null)
+            return plan;
+
+        // Loose files take priority over compiled resource packs
+        File xmlFile = new File(LAYOUT_DIR, xmlName);
+        if (!xmlFile.exists()) {
+            for (ResourcePack pack : Resources.getResourcePacks()) {
+                ByteBuffer data = pack.getData("layout/" + xmlName);
+                if (data == null)
+                    continue;
+                try {
+                    Set<String> deps = new HashSet<>();
+                    plan = new LayoutPlan(xmlName, compile(pack, data, deps), deps);
+                    planCache.put(xmlName, plan);
+                    return plan;
+                } catch (Exception e) {
+                    Log.e("Failed to read layout " + xmlName + " from " + pack, e);
+                }
+            }
+        }
+
+        InputStream is;
+        try {
+            is = Resources.getResourceStream(xmlFile);
+        } catch (Exception e) {
+            Log.e("Failed to find XML layout named " + xmlName, e);
+            return null;
+        }
+
+        // Stream the XML straight into the compiled plan
+        XMLStreamReader reader = null;
+        try {
+            reader = createReader(is);
+            Set<String> deps = new HashSet<>();
+            plan = new LayoutPlan(xmlName, compile(reader, deps), deps);
+            planCache.put(xmlName, plan);
+        } catch (Exception e) {
+            Log.e("Failed to compile layout named " + xmlName, e);
+        } finally {
+            try {
+                if (reader != null)
+                    reader.close();
+                is.close();
+            } catch (Exception ignored) {}
+        }
+
+        return plan;
+    }
+
+    /**
+     * Get the directory loose layout files are loaded from
+     * @return Layout directory
+     */
+    public static File getLayoutDir() {
+        return LAYOUT_DIR;
+    }
+
+    /**
+     * Discard the compiled plan for a layout so it's read again on the next inflation
+     * Generated factories for the layout are also dropped, since they no longer match the XML.
+     * @param xmlName XML file name (may omit .xml)
+     */
+    public static void invalidate(String xmlName) {
+        if (!xmlName.endsWith(".xml"))
+            xmlName = xmlName + ".xml";
+        planCache.remove(xmlName);
+        factories.remove(xmlName);
+    }
+
+    /**
+     * Discard all compiled plans after the view factories changed
+     * Plans hold the factory each tag resolved to when they were compiled.
+     * @param registry Registry which changed
+     */
+    static void onViewFactoriesChanged(ViewFactoryRegistry registry) {
+        if (registry == viewFactories)
+            planCache.clear();
+    }
+
+    /**
+     * Discard compiled plans which reference any of the given resources
+     * Generated factories aren't used while the {@link ResourceWatcher} is running, so they never
+     * need to be dropped here.
+     * @param resourceKeys Resource keys (i.e. "color/white")
+     * @return Names of the invalidated layouts
+     */
+    public static Set<String> invalidateResources(Set<String> resourceKeys) {
+        Set<String> invalidated = new HashSet<>();
+        for (LayoutPlan plan : planCache.values()) {
+            for (String key : plan.getResourceKeys()) {
+                if (resourceKeys.contains(key)) {
+                    invalidated.add(plan.getName());
+                    break;
+                }
+            }
+        }
+        for (String name : invalidated)
+            planCache.remove(name);
+        return invalidated;
+    }
+
+    /**
+     * Create a streaming XML reader
+     * @param is Input stream
+     * @return XML stream reader
+     * @throws XMLStreamException Failed to create reader
+     */
+    static XMLStreamReader createReader(InputStream is) throws XMLStreamException {
+        // Factories aren't guaranteed to be thread-safe, and layouts may be compiled in the background
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        return factory.createXMLStreamReader(is);
     }
 
-    private static void inflate(InflatedLayout inf, Container parent, Node pNode, AttributeSet rootAttrs) {
-        NodeList nList = pNode.getChildNodes();
-        int nLength = nList.getLength();
-        for (int i = 0; i < nLength; i++) {
+    private static LayoutFactory getFactory(String xmlName) {
+        // Generated code has resource values baked in, so it can't follow hot reloads
+        if (ResourceWatcher.isRunning())
+            return null;
+        if (!factoriesLoaded) {
+            synchronized (factories) {
+                if (!factoriesLoaded) {
+                    try {
+                        for (LayoutFactory factory : ServiceLoader.load(LayoutFactory.class))
+                            factories.putIfAbsent(factory.getLayoutName(), factory);
+                    } catch (ServiceConfigurationError e) {
+                        Log.e("Failed to load layout factories", e);
+                    }
+                    factoriesLoaded = true;
+                }
+            }
+        }
+        return factories.get(xmlName);
+    }
 
-            Node node = nList.item(i);
-            String name = node.getNodeName();
-            if (name.equals("#text") || node.getNodeType() != Node.ELEMENT_NODE)
+    /**
+     * Compile the elements under the reader's current position until the enclosing
+     * element (or document) ends
+     * @param reader XML stream reader
+     * @param deps Set to add referenced resource keys to
+     * @return Compiled nodes
+     * @throws XMLStreamException Malformed XML
+     */
+    private static List<LayoutPlan.Node> compile(XMLStreamReader reader, Set<String> deps)
+            throws XMLStreamException {
+        List<LayoutPlan.Node> nodes = new ArrayList<>();
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT)
+                break;
+            if (event != XMLStreamConstants.START_ELEMENT)
                 continue;
 
+            String name = reader.getLocalName();
+
             // Read attributes from XML
-            AttributeSet attrs = new AttributeSet((Element) node);
+            AttributeSet attrs = new AttributeSet(reader);
+            for (int i = 0; i < reader.getAttributeCount(); i++)
+                addDependency(deps, reader.getAttributeValue(i));
+
+            if (name.equals("include")) {
+                // Include another layout in this one
+                skip(reader);
+                String layoutName = attrs.getString("layout", null);
+                if (layoutName == null)
+                    continue;
+                if (layoutName.startsWith("@layout/"))
+                    layoutName = layoutName.substring("@layout/".length());
+                nodes.add(new LayoutPlan.Node(name, attrs, null, layoutName, Collections.emptyList()));
+                continue;
+            }
+
+            // Resolve the component factory up front
+            ViewFactory factory = viewFactories.get(name);
+            if (factory == null) {
+                Log.e("Failed to find Component class " + name);
+                skip(reader);
+                continue;
+            }
+
+            nodes.add(new LayoutPlan.Node(name, attrs, factory, null, compile(reader, deps)));
+        }
+        return nodes;
+    }
+
+    /**
+     * Compile layout nodes stored in a resource pack
+     * Each node is stored as its tag, raw attributes (sorted by name) and children,
+     * so resource references are resolved against the current resource values.
+     * @param pack Resource pack
+     * @param data Node data
+     * @param deps Set to add referenced resource keys to
+     * @return Compiled nodes
+     */
+    private static List<LayoutPlan.Node> compile(ResourcePack pack, ByteBuffer data, Set<String> deps) {
+        int count = data.getInt();
+        List<LayoutPlan.Node> nodes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = pack.getString(data.getInt());
+
+            AttributeSet attrs = new AttributeSet();
+            int attrCount = data.getInt();
+            for (int j = 0; j < attrCount; j++) {
+                String key = pack.getString(data.getInt()), value = pack.getString(data.getInt());
+                addDependency(deps, value);
+                attrs.putResolved(key, value);
+            }
+
+            if (name.equals("include")) {
+                skip(data);
+                String layoutName = attrs.getString("layout", null);
+                if (layoutName == null)
+                    continue;
+                if (layoutName.startsWith("@layout/"))
+                    layoutName = layoutName.substring("@layout/".length());
+                nodes.add(new LayoutPlan.Node(name, attrs, null, layoutName, Collections.emptyList()));
+                continue;
+            }
+
+            ViewFactory factory = viewFactories.get(name);
+            if (factory == null) {
+                Log.e("Failed to find Component class " + name);
+                skip(data);
+                continue;
+            }
+
+            nodes.add(new LayoutPlan.Node(name, attrs, factory, null, compile(pack, data, deps)));
+        }
+        return nodes;
+    }
+
+    private static void addDependency(Set<String> deps, String value) {
+        if (value.startsWith("@"))
+            deps.add(value.substring(1));
+    }
+
+    /**
+     * Skip over a list of nodes in a resource pack
+     * @param data Node data
+     */
+    private static void skip(ByteBuffer data) {
+        int count = data.getInt();
+        for (int i = 0; i < count; i++) {
+            data.getInt();
+            int attrCount = data.getInt();
+            data.position(data.position() + attrCount * 8);
+            skip(data);
+        }
+    }
+
+    /**
+     * Skip to the end of the current element
+     * @param reader XML stream reader
+     * @throws XMLStreamException Malformed XML
+     */
+    private static void skip(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT)
+                depth++;
+            else if (event == XMLStreamConstants.END_ELEMENT)
+                depth--;
+        }
+    }
+
+    private static void inflate(InflatedLayout inf, Container parent, List<LayoutPlan.Node> nodes,
+                                AttributeSet rootAttrs, List<Runnable> finishers) {
+        for (LayoutPlan.Node node : nodes) {
+
+            // Copy the pre-resolved attributes
+            AttributeSet attrs = node.getAttributes();
+            LayoutParams lp;
 
             // Attribute override
-            if (rootAttrs != null)
+            if (rootAttrs != null) {
                 attrs.putAll(rootAttrs);
+                lp = new LayoutParams(attrs);
+            } else
+                lp = node.getLayoutParams();
 
             Component comp;
-            if (name.equals("include")) {
+            if (node.isInclude()) {
                 // Include another layout in this one
-                comp = inflateSubLayout(attrs);
+                comp = LayoutInflater.inflate(node.getInclude(), attrs, finishers).getRoot();
             } else {
-                // Create component from tag name and attributes
-                comp = createComponent(name, attrs);
+                // Create component from the resolved class and attributes
+                comp = node.getFactory().create(attrs);
             }
 
             // Failed to create component
             if (comp == null)
                 continue;
 
-            LayoutParams lp = new LayoutParams(attrs);
-
             if (comp instanceof AbstractLayout) {
                 AbstractLayout ll = (AbstractLayout) comp;
                 ll.setLayoutParams(lp);
             }
 
-            if (parent != null) {
-                if (parent instanceof AbstractLayout)
-                    parent.add(comp, lp);
-                else if (parent instanceof ScrollLayout)
-                    ((ScrollLayout) parent).setViewportView(comp);
-                else
-                    parent.add(comp);
-            }
+            if (parent != null)
+                addChild(parent, comp, lp);
 
             if (comp instanceof Container)
-                inflate(inf, (Container) comp, node, null);
+                inflate(inf, (Container) comp, node.getChildren(), null, finishers);
 
             if (parent == null)
                 inf.setRoot(comp);
@@ -148,111 +562,37 @@ public class LayoutInflater {
             inf.addComponent(comp);
         }
 
-        if (parent instanceof AbstractLayout)
-            ((AbstractLayout) parent).onFinishInflate(inf);
-    }
-
-    private static Component inflateSubLayout(AttributeSet attrs) {
-        String layoutName = attrs.getString("layout", null);
-        if (layoutName == null)
-            return null;
-        if (layoutName.startsWith("@layout/"))
-            layoutName = layoutName.substring("@layout/".length());
-        InflatedLayout inc = LayoutInflater.inflate(layoutName, attrs);
-        return inc.getRoot();
-    }
-
-    private static Class<?> findClass(String baseName) {
-        Class<?> c = baseNameCache.get(baseName);
-        if (c != null)
-            return c;
-        try {
-            if (baseName.contains(".")) {
-                try {
-                    return c = Class.forName(baseName);
-                } catch (Exception ignore) {
-                }
-            }
-            for (String pkgRoot : PACKAGE_ROOTS) {
-                try {
-                    return c = Class.forName(pkgRoot + "." + baseName);
-                } catch (Exception ignore) {
-                }
-            }
-            try {
-                return c = Class.forName("javax.swing.J" + baseName);
-            } catch (Exception ignore) {
-            }
-            return null;
-        } finally {
-            baseNameCache.put(baseName, c);
-        }
-    }
-
-    private static Component createComponent(String name, AttributeSet attrs) {
-        Class<?> viewClass = findClass(name);
-        if (viewClass == null || !Component.class.isAssignableFrom(viewClass)) {
-            Log.e("Failed to find Component class " + name);
-            return null;
-        }
-
-        // Attempt to instantiate using attribute set
-        try {
-            Constructor<?> ctor = viewClass.getConstructor(AttributeSet.class);
-            if (ctor != null)
-                return (Component) ctor.newInstance(attrs);
-        } catch (NoSuchMethodException ignore) {
-        } catch (Exception e) {
-            Log.e("Failed to create new instance of " + viewClass, e);
+        if (parent instanceof AbstractLayout) {
+            AbstractLayout layout = (AbstractLayout) parent;
+            if (finishers != null)
+                finishers.add(() -> layout.onFinishInflate(inf));
+            else
+                layout.onFinishInflate(inf);
         }
-
-        // Fallback initialization
-        return createFallback(viewClass, attrs);
     }
 
-    private static final Class<?>[] ARGUMENT_CLASSES = {
-            String.class, boolean.class, int.class, float.class, Color.class
-    };
-
-    private static Component createFallback(Class<?> cl, AttributeSet attrs) {
-        Component comp = null;
-        try {
-            Constructor<?> ctor = cl.getConstructor();
-            if (ctor == null)
-                return null;
-            comp = (Component) ctor.newInstance();
-            for (Map.Entry<String, String> e : attrs.entrySet()) {
-                String name = e.getKey();
-                String mName = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
-                for (Class<?> argClass : ARGUMENT_CLASSES) {
-                    if (invokeMethod(comp, e.getKey(), attrs, mName, argClass))
-                        break;
-                }
-            }
-        } catch (Exception e) {
-            Log.e("Failed to initialize Component fallback: " + cl, e);
-        }
-        return comp;
+    private static ExecutorService createDefaultExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "LayoutInflater-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
     }
 
-    private static boolean invokeMethod(Component comp, String key, AttributeSet attrs, String methodName, Class<?> argClass) {
-        try {
-            Object arg = attrs.get(key);
-            if (argClass == boolean.class)
-                arg = attrs.getBoolean(key, false);
-            else if (argClass == int.class)
-                arg = attrs.getDimension(key, 0);
-            else if (argClass == float.class)
-                arg = attrs.getFloat(key, 0f);
-            else if (argClass == Color.class)
-                arg = attrs.getColor(key, Color.WHITE);
-            Method method = comp.getClass().getMethod(methodName, argClass);
-            if (method != null) {
-                method.invoke(comp, arg);
-                return true;
-            }
-        } catch (Exception ignore) {
-        }
-        return false;
+    /**
+     * Add an inflated component to its parent container
+     * @param parent Parent container
+     * @param comp Child component
+     * @param lp Child layout parameters
+     */
+    public static void addChild(Container parent, Component comp, LayoutParams lp) {
+        if (parent instanceof AbstractLayout)
+            parent.add(comp, lp);
+        else if (parent instanceof ScrollLayout)
+            ((ScrollLayout) parent).setViewportView(comp);
+        else
+            parent.add(comp);
     }
 }
@@ -0,0 +1,105 @@
+package software.blob.ui.view.layout;
+
+import software.blob.ui.view.resource.ResourceMap;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Tool that measures the heap retained by compiled layouts and loaded values files
+ *
+ * Each layout is compiled several times and the copies are kept, so the reported size is the
+ * average retained size of one {@link LayoutPlan}. Each values file is dropped with
+ * {@link ResourceMap#reload(File)} and its resources are looked up again; styles which
+ * reference the file's values are reloaded (and counted) with it.
+ *
+ * Run with a fixed heap (i.e. -Xms512m -Xmx512m) for steadier numbers.
+ *
+ * Usage: LayoutMemoryBenchmark [layout name...] (defaults to the bundled layouts)
+ */
+public class LayoutMemoryBenchmark {
+
+    private static final String[] BUNDLED_LAYOUTS = {
+            "file_browser_dialog", "file_browser_entry", "html_dialog",
+            "layout_dialog", "progress_dialog", "scroll_popup"
+    };
+    private static final int COPIES = 200;
+
+    public static void main(String[] args) {
+        String[] layouts = args.length > 0 ? args : BUNDLED_LAYOUTS;
+
+        System.out.println("Layouts:");
+        for (String name : layouts)
+            measureLayout(name);
+
+        System.out.println("Values files:");
+        ResourceMap.loadAll();
+        Set<File> files = new LinkedHashSet<>();
+        File valuesDir = ResourceMap.getValuesDir();
+        files.add(new File(valuesDir, "color.xml"));
+        files.add(new File(valuesDir, "dimen.xml"));
+        files.add(new File(valuesDir, "style.xml"));
+        File[] dirFiles = valuesDir.listFiles();
+        if (dirFiles != null) {
+            for (File f : dirFiles) {
+                if (f.getName().endsWith(".xml"))
+                    files.add(f);
+            }
+        }
+        for (File f : files)
+            measureValues(f);
+    }
+
+    private static void measureLayout(String name) {
+        List<LayoutPlan> plans = new ArrayList<>(COPIES);
+        long before = getUsedMemory();
+        for (int i = 0; i < COPIES; i++) {
+            LayoutInflater.invalidate(name);
+            LayoutPlan plan = LayoutInflater.getPlan(name);
+            if (plan == null) {
+                System.out.println("  " + name + ": not found");
+                return;
+            }
+            plans.add(plan);
+        }
+        long retained = (getUsedMemory() - before) / COPIES;
+        System.out.printf("  %s: %,d bytes (%d nodes)%n", name, retained, countNodes(plans.get(0).getRoots()));
+    }
+
+    private static void measureValues(File file) {
+        Set<String> keys = ResourceMap.reload(file);
+        if (keys.isEmpty())
+            return;
+        long before = getUsedMemory();
+        for (String key : keys)
+            ResourceMap.getResource(key);
+        long retained = getUsedMemory() - before;
+        System.out.printf("  %s: %,d bytes (%d resources)%n", file.getName(), retained, keys.size());
+    }
+
+    private static int countNodes(List<LayoutPlan.Node> nodes) {
+        int count = 0;
+        for (LayoutPlan.Node node : nodes)
+            count += 1 + countNodes(node.getChildren());
+        return count;
+    }
+
+    /**
+     * Get the heap in use after collecting garbage
+     * @return Used bytes
+     */
+    static long getUsedMemory() {
+        Runtime rt = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                break;
+            }
+            used = Math.min(used, rt.totalMemory() - rt.freeMemory());
+        }
+        return used;
+    }
+}
@@ -29,6 +29,12 @@ public class LayoutParams {
         this(WRAP_CONTENT, WRAP_CONTENT);
     }
 
+    public LayoutParams(LayoutParams other) {
+        this(other.width, other.height, other.weight);
+        this.gravity = other.gravity;
+        this.margins.set(other.margins.top, other.margins.left, other.margins.bottom, other.margins.right);
+    }
+
     public LayoutParams(AttributeSet attrs) {
         this.width = attrs.getDimension("width", WRAP_CONTENT);
         this.height = attrs.getDimension("height", WRAP_CONTENT);
@@ -0,0 +1,139 @@
+package software.blob.ui.view.layout;
+
+import software.blob.ui.view.AttributeSet;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compiled form of a layout XML file
+ * Built once per layout by the {@link LayoutInflater} so subsequent inflations
+ * only need to instantiate components instead of walking the XML document
+ */
+public class LayoutPlan {
+
+    private final String name;
+    private final List<Node> roots;
+    private final Set<String> resourceKeys;
+
+    LayoutPlan(String name, List<Node> roots, Set<String> resourceKeys) {
+        this.name = name;
+        this.roots = Collections.unmodifiableList(roots);
+        this.resourceKeys = Collections.unmodifiableSet(resourceKeys);
+    }
+
+    /**
+     * Get the layout file name this plan was compiled from
+     * @return Layout file name
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Get the top-level nodes of the layout
+     * @return Root nodes
+     */
+    public List<Node> getRoots() {
+        return this.roots;
+    }
+
+    /**
+     * Get the resources referenced by this layout's attributes
+     * @return Resource keys (i.e. "color/white")
+     */
+    public Set<String> getResourceKeys() {
+        return this.resourceKeys;
+    }
+
+    /**
+     * A single element in the compiled layout
+     */
+    public static class Node {
+
+        private final String tag;
+        private final AttributeSet attrs;
+        private final LayoutParams layoutParams;
+        private final ViewFactory factory;
+        private final String include;
+        private final List<Node> children;
+
+        Node(String tag, AttributeSet attrs, ViewFactory factory, String include, List<Node> children) {
+            this.tag = tag;
+            this.attrs = attrs;
+            this.layoutParams = new LayoutParams(attrs);
+            this.factory = factory;
+            this.include = include;
+            this.children = Collections.unmodifiableList(children);
+        }
+
+        /**
+         * Get the XML tag name of this node
+         * @return Tag name
+         */
+        public String getTag() {
+            return this.tag;
+        }
+
+        /**
+         * Get a copy of the resolved attributes for this node
+         * @return Attribute set (safe to modify)
+         */
+        public AttributeSet getAttributes() {
+            return new AttributeSet(this.attrs);
+        }
+
+        /**
+         * Get a copy of the layout parameters for this node
+         * @return Layout parameters (safe to modify)
+         */
+        public LayoutParams getLayoutParams() {
+            return new LayoutParams(this.layoutParams);
+        }
+
+        /**
+         * Get the factory used to create this node's component
+         * @return View factory or null if this is an include node
+         */
+        public ViewFactory getFactory() {
+            return this.factory;
+        }
+
+        /**
+         * Get the component class this node is instantiated as
+         * @return Component class or null if unknown (include node or custom factory)
+         */
+        public Class<?> getViewClass() {
+            return this.factory instanceof ViewBinding ? ((ViewBinding) this.factory).getViewClass() : null;
+        }
+
+        /**
+         * Check if the component class has a constructor which takes an {@link AttributeSet}
+         * @return True if supported, false if the class needs to use the setter fallback
+         */
+        public boolean hasAttributesConstructor() {
+            return this.factory instanceof ViewBinding && ((ViewBinding) this.factory).hasAttributesConstructor();
+        }
+
+        /**
+         * Get the name of the layout included by this node
+         * @return Layout name or null if this is not an include node
+         */
+        public String getInclude() {
+            return this.include;
+        }
+
+        /**
+         * Check if this node includes another layout
+         * @return True if include node
+         */
+        public boolean isInclude() {
+            return this.include != null;
+        }
+
+        public List<Node> getChildren() {
+            return this.children;
+        }
+    }
+}
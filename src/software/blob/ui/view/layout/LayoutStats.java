@@ -0,0 +1,79 @@
+package software.blob.ui.view.layout;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for layout work, used to check how much of a tree is laid out again per change
+ *
+ * Typical usage:
+ * <pre>
+ * LayoutStats.reset();
+ * label.setText("Changed");
+ * // ...after the next validate
+ * Log.d(LayoutStats.getSummary());
+ * </pre>
+ */
+public class LayoutStats {
+
+    private static final AtomicLong measures = new AtomicLong(), measureHits = new AtomicLong();
+    private static final AtomicLong arranges = new AtomicLong(), boundaryStops = new AtomicLong();
+
+    /**
+     * Reset all counters to zero
+     */
+    public static void reset() {
+        measures.set(0);
+        measureHits.set(0);
+        arranges.set(0);
+        boundaryStops.set(0);
+    }
+
+    /**
+     * Get the number of measure passes that were run
+     * @return Measure count
+     */
+    public static long getMeasureCount() {
+        return measures.get();
+    }
+
+    /**
+     * Get the number of measure passes skipped because the cached measurement was still valid
+     * @return Measure cache hit count
+     */
+    public static long getMeasureHitCount() {
+        return measureHits.get();
+    }
+
+    /**
+     * Get the number of arrange passes ({@link java.awt.LayoutManager#layoutContainer}) that were run
+     * @return Arrange count
+     */
+    public static long getArrangeCount() {
+        return arranges.get();
+    }
+
+    /**
+     * Get the number of ancestor re-measures skipped because the change was inside a relayout boundary
+     * @return Skipped ancestor count
+     */
+    public static long getBoundaryStopCount() {
+        return boundaryStops.get();
+    }
+
+    public static String getSummary() {
+        return "Layout: " + measures + " measures, " + measureHits + " cached, " + arranges + " arranges, "
+                + boundaryStops + " stopped at boundaries";
+    }
+
+    static void onMeasure(boolean cached) {
+        (cached ? measureHits : measures).incrementAndGet();
+    }
+
+    static void onArrange() {
+        arranges.incrementAndGet();
+    }
+
+    static void onBoundaryStop() {
+        boundaryStops.incrementAndGet();
+    }
+}
@@ -12,6 +12,11 @@ import java.util.List;
 
 /**
  * Layout manager meant to be used with {@link LinearLayout} exclusively
+ *
+ * Layout happens in two passes. The measure pass ({@link #measure()}) computes the size of the
+ * subject from its {@link MeasureSpec}s and the measured sizes of its children. The result is
+ * cached until the subject is invalidated or its specs change, so clean subtrees are skipped.
+ * The arrange pass ({@link #layoutContainer(Container)}) then positions the children.
  */
 public class LinearLayoutManager implements LayoutManager2 {
 
@@ -20,6 +25,16 @@ public class LinearLayoutManager implements LayoutManager2 {
     protected Dimension wrapDim = new Dimension(0, 0);
     protected float weightSum;
 
+    // Measure cache
+    private boolean dirty = true;
+    private int widthSpec = -1, heightSpec = -1;
+
+    // True while a validate of the subject is queued
+    private boolean validatePending;
+
+    // True while onMeasure() is running
+    private boolean inMeasure;
+
     public LinearLayoutManager(LinearLayout subject) {
         this.subject = subject;
     }
@@ -34,14 +49,14 @@ public class LinearLayoutManager implements LayoutManager2 {
         Dimension size = new Dimension();
 
         if (rootLP.width == LayoutParams.WRAP_CONTENT)
-            size.width = this.wrapDim.width;
+            size.width = MeasureSpec.resolveSize(getWidthSpec(), this.wrapDim.width);
         else if (pSize != null && rootLP.width == LayoutParams.MATCH_PARENT)
             size.width = pSize.width;
         else
             size.width = this.subject.getWidth();
 
         if (rootLP.height == LayoutParams.WRAP_CONTENT)
-            size.height = this.wrapDim.height;
+            size.height = MeasureSpec.resolveSize(getHeightSpec(), this.wrapDim.height);
         else if (pSize != null && rootLP.height == LayoutParams.MATCH_PARENT)
             size.height = pSize.height;
         else
@@ -50,23 +65,122 @@ public class LinearLayoutManager implements LayoutManager2 {
         return size;
     }
 
+    /**
+     * Get the horizontal constraint of the subject
+     * @return Measure spec
+     */
+    public int getWidthSpec() {
+        LayoutParams rootLP = this.subject.getLayoutParams();
+        if (rootLP.width == LayoutParams.WRAP_CONTENT)
+            return getWrapSpec(true);
+        Dimension pSize = rootLP.width == LayoutParams.MATCH_PARENT ? getParentSize() : null;
+        return MeasureSpec.makeMeasureSpec(pSize != null ? pSize.width : this.subject.getWidth(),
+                MeasureSpec.EXACTLY);
+    }
+
+    /**
+     * Get the vertical constraint of the subject
+     * @return Measure spec
+     */
+    public int getHeightSpec() {
+        LayoutParams rootLP = this.subject.getLayoutParams();
+        if (rootLP.height == LayoutParams.WRAP_CONTENT)
+            return getWrapSpec(false);
+        Dimension pSize = rootLP.height == LayoutParams.MATCH_PARENT ? getParentSize() : null;
+        return MeasureSpec.makeMeasureSpec(pSize != null ? pSize.height : this.subject.getHeight(),
+                MeasureSpec.EXACTLY);
+    }
+
+    /**
+     * Get the constraint of a wrap_content dimension
+     * The subject may grow up to the size of a parent layout with a known size. Other parents
+     * (scroll views, wrap_content layouts, plain containers) may be sized from their content,
+     * so they don't constrain it.
+     * @param horizontal True for the width, false for the height
+     * @return Measure spec
+     */
+    private int getWrapSpec(boolean horizontal) {
+        Container parent = this.subject.getParent();
+        LayoutManager lm = parent != null ? parent.getLayout() : null;
+        if (!(lm instanceof LinearLayoutManager))
+            return MeasureSpec.UNSPECIFIED;
+        int spec = horizontal ? ((LinearLayoutManager) lm).widthSpec : ((LinearLayoutManager) lm).heightSpec;
+        if (MeasureSpec.getMode(spec) != MeasureSpec.EXACTLY)
+            return MeasureSpec.UNSPECIFIED;
+        Insets padding = parent.getInsets();
+        int size = MeasureSpec.getSize(spec) - (horizontal ? padding.left + padding.right : padding.top + padding.bottom);
+        return size > 0 ? MeasureSpec.makeMeasureSpec(size, MeasureSpec.AT_MOST) : MeasureSpec.UNSPECIFIED;
+    }
+
+    /**
+     * Mark the cached measurement as stale so the next {@link #measure()} re-runs it
+     */
+    public void markDirty() {
+        this.dirty = true;
+    }
+
+    public boolean isDirty() {
+        return this.dirty;
+    }
+
     @Override
     public void invalidateLayout(Container target) {
-        if (this.subject.inBulkOperation())
+        // The change is inside a child with a fixed size, so this layout isn't affected
+        // Swing still marks it invalid though, so validate it again without measuring
+        if (this.subject.isAboveRelayoutBoundary()) {
+            LayoutStats.onBoundaryStop();
+            postValidate();
             return;
+        }
+        markDirty();
+        measure();
+    }
+
+    /**
+     * Measure the subject, unless it's clean and its specs haven't changed since the last measure
+     * @return True if measured, false if the cached measurement was used
+     */
+    public boolean measure() {
+        if (this.subject.inBulkOperation())
+            return false;
 
-        Dimension bla = getSubjectSize();
-        String name = this.subject.getName();
-        //System.out.println("invalidateLayout " + this.subject.getClass().getSimpleName() + "[" + name + "] -> " + bla);
+        // Children are still being added or removed
+        if (this.subject.getComponentCount() != this.childLayouts.size())
+            return false;
 
-        LayoutParams rootLP = this.subject.getLayoutParams();
+        // Children resized by the pass in progress invalidate the subject again, but each child is
+        // measured before its size is read, so re-entering would only repeat the work (once per child)
+        if (this.inMeasure)
+            return false;
+
+        int widthSpec = getWidthSpec(), heightSpec = getHeightSpec();
+        if (!this.dirty && widthSpec == this.widthSpec && heightSpec == this.heightSpec) {
+            LayoutStats.onMeasure(true);
+            return false;
+        }
+
+        // Cleared first so invalidations while measuring aren't lost
+        this.dirty = false;
+        this.widthSpec = widthSpec;
+        this.heightSpec = heightSpec;
+        LayoutStats.onMeasure(false);
+        this.inMeasure = true;
+        try {
+            onMeasure();
+        } finally {
+            this.inMeasure = false;
+        }
+        return true;
+    }
+
+    /**
+     * Measure the children, then size the subject to fit them
+     */
+    protected void onMeasure() {
         Insets padding = this.subject.getInsets();
         int orientation = this.subject.getOrientation();
         Component[] children = this.subject.getComponents();
 
-        if (children.length != this.childLayouts.size())
-            return;
-
         float weightSum = 0;
         int wrapWidth = 0, wrapHeight = 0;
         for (int i = 0; i < children.length; i++) {
@@ -74,17 +188,7 @@ public class LinearLayoutManager implements LayoutManager2 {
             if (getVisibility(c) == View.GONE)
                 continue;
 
-            if (c instanceof AbstractLayout)
-                ((AbstractLayout) c).invalidateLayout();
-            else if (c instanceof ScrollLayout) {
-                ScrollLayout sl = (ScrollLayout) c;
-                JViewport viewport = sl.getViewport();
-                if (viewport != null) {
-                    Component vv = viewport.getView();
-                    if (vv instanceof AbstractLayout)
-                        ((AbstractLayout) vv).invalidateLayout();
-                }
-            }
+            measureChild(c);
 
             LayoutParams lp = this.childLayouts.get(i);
             Dimension d = getChildSize(c, i);
@@ -123,9 +227,38 @@ public class LinearLayoutManager implements LayoutManager2 {
         }
 
         this.subject.setSize(size);
+        postValidate();
+    }
+
+    /**
+     * Queue the arrange pass, once per batch of changes
+     */
+    private void postValidate() {
+        if (this.validatePending)
+            return;
+        this.validatePending = true;
+        SwingUtilities.invokeLater(() -> {
+            this.validatePending = false;
+            this.subject.validate();
+        });
+    }
 
-        SwingUtilities.invokeLater(this.subject::validate);
-        //System.out.println(this.subject.getName() + " size = [" + size.width + ", " + size.height + "] wrap = [" + wrapWidth + ", " + wrapHeight + "]");
+    /**
+     * Measure a child layout (or the layout inside a scroll pane)
+     * @param c Child component
+     */
+    protected static void measureChild(Component c) {
+        if (c instanceof ScrollLayout) {
+            JViewport viewport = ((ScrollLayout) c).getViewport();
+            c = viewport != null ? viewport.getView() : null;
+        }
+        if (!(c instanceof AbstractLayout))
+            return;
+        LayoutManager lm = ((AbstractLayout) c).getLayout();
+        if (lm instanceof LinearLayoutManager)
+            ((LinearLayoutManager) lm).measure();
+        else
+            ((AbstractLayout) c).invalidateLayout();
     }
 
     @Override
@@ -181,6 +314,7 @@ public class LinearLayoutManager implements LayoutManager2 {
         if (this.subject.inBulkOperation())
             return;
 
+        LayoutStats.onArrange();
         //System.out.println("layoutContainer " + this.subject.getClass().getSimpleName() + "[" + subject.getName() + "] -> " + getSubjectSize());
 
         Insets padding = this.subject.getInsets();
@@ -0,0 +1,67 @@
+package software.blob.ui.view.layout;
+
+/**
+ * Size constraint passed to a layout during the measure pass
+ * Based on the Android class of the same name: the mode and size are packed into a single int
+ * so specs can be compared and cached cheaply.
+ */
+public class MeasureSpec {
+
+    private static final int MODE_SHIFT = 30;
+    private static final int MODE_MASK = 0x3 << MODE_SHIFT;
+
+    // The layout may be any size (i.e. wrap_content inside a scroll view or another wrap_content layout)
+    public static final int UNSPECIFIED = 0;
+
+    // The layout must be exactly the given size (i.e. match_parent or a fixed pixel size)
+    public static final int EXACTLY = 1 << MODE_SHIFT;
+
+    // The layout may be up to the given size (i.e. wrap_content inside a layout with a known size)
+    public static final int AT_MOST = 2 << MODE_SHIFT;
+
+    /**
+     * Create a measure spec
+     * @param size Size in pixels
+     * @param mode {@link #UNSPECIFIED}, {@link #EXACTLY} or {@link #AT_MOST}
+     * @return Measure spec
+     */
+    public static int makeMeasureSpec(int size, int mode) {
+        return (Math.max(0, size) & ~MODE_MASK) | (mode & MODE_MASK);
+    }
+
+    public static int getMode(int spec) {
+        return spec & MODE_MASK;
+    }
+
+    public static int getSize(int spec) {
+        return spec & ~MODE_MASK;
+    }
+
+    /**
+     * Resolve the final size of a layout given its spec and content size
+     * @param spec Measure spec
+     * @param contentSize Size required to wrap the content
+     * @return Size in pixels
+     */
+    public static int resolveSize(int spec, int contentSize) {
+        switch (getMode(spec)) {
+            case EXACTLY:
+                return getSize(spec);
+            case AT_MOST:
+                return Math.min(getSize(spec), contentSize);
+            default:
+                return contentSize;
+        }
+    }
+
+    public static String toString(int spec) {
+        switch (getMode(spec)) {
+            case EXACTLY:
+                return "EXACTLY " + getSize(spec);
+            case AT_MOST:
+                return "AT_MOST " + getSize(spec);
+            default:
+                return "UNSPECIFIED";
+        }
+    }
+}
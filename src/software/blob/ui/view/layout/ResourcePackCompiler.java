@@ -0,0 +1,171 @@
+package software.blob.ui.view.layout;
+
+import software.blob.ui.res.ResourcePack;
+import software.blob.ui.res.Resources;
+import software.blob.ui.util.Log;
+import software.blob.ui.view.resource.ResourceMap;
+import software.blob.ui.view.resource.StyleResource;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Build-time tool that compiles resources into a single {@link ResourcePack}
+ *
+ * The pack contains:
+ * - Every resource value known to the {@link ResourceMap} (strings, pre-decoded colors/dimensions/booleans, styles)
+ * - Layouts from the resource directory as compact node trees
+ * - All other files in the resource directory (icons, html, etc.) as raw blobs
+ *
+ * Load the output with {@link Resources#addResourcePack(File)}.
+ *
+ * Only files on disk are packed. Resources bundled on the classpath (i.e. the library's own
+ * layouts and icons under software/blob/ui/res) are left out unless their source directory
+ * is passed as well, in which case files in the resource directory take priority.
+ *
+ * Usage: ResourcePackCompiler [output file] [bundled resource directory...]
+ */
+public class ResourcePackCompiler {
+
+    private final ResourcePack.Writer writer = new ResourcePack.Writer();
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ResourcePackCompiler <output file> [bundled resource directory...]");
+            System.exit(1);
+        }
+
+        ResourcePackCompiler compiler = new ResourcePackCompiler();
+        compiler.addValues();
+        for (int i = 1; i < args.length; i++)
+            compiler.addFiles(new File(args[i]), "");
+        compiler.addFiles(Resources.RES_DIR, "");
+        compiler.write(new File(args[0]));
+    }
+
+    /**
+     * Add all resource values
+     */
+    public void addValues() throws IOException {
+        for (String key : new TreeSet<>(ResourceMap.getKeys())) {
+            Object value = ResourceMap.getResource(key);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            int type;
+            if (value instanceof StyleResource) {
+                type = ResourcePack.TYPE_STYLE;
+                Map<String, String> items = new TreeMap<>(((StyleResource) value).getFlattened());
+                out.writeInt(items.size());
+                for (Map.Entry<String, String> e : items.entrySet()) {
+                    out.writeInt(writer.intern(e.getKey()));
+                    out.writeInt(writer.intern(e.getValue()));
+                }
+            } else if (value instanceof String) {
+                out.writeInt(writer.intern((String) value));
+                Object typed = ResourceMap.getTypedResource(key);
+                if (typed instanceof Integer) {
+                    type = ResourcePack.TYPE_INT;
+                    out.writeInt((Integer) typed);
+                } else if (typed instanceof Boolean) {
+                    type = ResourcePack.TYPE_BOOLEAN;
+                    out.writeByte((Boolean) typed ? 1 : 0);
+                } else
+                    type = ResourcePack.TYPE_STRING;
+            } else
+                continue;
+            writer.add(key, type, bytes.toByteArray());
+        }
+    }
+
+    /**
+     * Add layouts and raw files from a resource directory
+     * Values files are skipped since they're added by {@link #addValues()}
+     * Files replace those with the same path from directories added before.
+     * @param dir Directory
+     * @param prefix Key prefix (path relative to the resource directory)
+     */
+    public void addFiles(File dir, String prefix) throws IOException {
+        File[] files = dir.listFiles();
+        if (files == null)
+            return;
+        Arrays.sort(files);
+        for (File f : files) {
+            String key = prefix + f.getName();
+            if (f.isDirectory()) {
+                if (!key.equals("values"))
+                    addFiles(f, key + "/");
+            } else if (prefix.equals("layout/") && key.endsWith(".xml"))
+                addLayout(key, f);
+            else if (!prefix.equals("values/"))
+                writer.add(key, ResourcePack.TYPE_BLOB, Files.readAllBytes(f.toPath()));
+        }
+    }
+
+    /**
+     * Write the resource pack
+     * @param file Output file
+     */
+    public void write(File file) throws IOException {
+        writer.write(file);
+        Log.d("Wrote resource pack " + file);
+    }
+
+    private void addLayout(String key, File xmlFile) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream is = new FileInputStream(xmlFile)) {
+            XMLStreamReader reader = LayoutInflater.createReader(is);
+            try {
+                writeNodes(reader, new DataOutputStream(bytes));
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            Log.e("Failed to compile layout " + xmlFile, e);
+            return;
+        }
+        writer.add(key, ResourcePack.TYPE_LAYOUT, bytes.toByteArray());
+    }
+
+    /**
+     * Write the elements under the reader's current position
+     * Attribute values are kept unresolved so loose values files can still override them
+     */
+    private void writeNodes(XMLStreamReader reader, DataOutputStream out) throws IOException, XMLStreamException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream nodes = new DataOutputStream(bytes);
+        int count = 0;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT)
+                break;
+            if (event != XMLStreamConstants.START_ELEMENT)
+                continue;
+
+            Map<String, String> attrs = new TreeMap<>();
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                QName name = reader.getAttributeName(i);
+                String prefix = name.getPrefix();
+                String attrName = prefix == null || prefix.isEmpty() ? name.getLocalPart()
+                        : prefix + ":" + name.getLocalPart();
+                attrs.put(attrName, reader.getAttributeValue(i));
+            }
+
+            nodes.writeInt(writer.intern(reader.getLocalName()));
+            nodes.writeInt(attrs.size());
+            for (Map.Entry<String, String> e : attrs.entrySet()) {
+                nodes.writeInt(writer.intern(e.getKey()));
+                nodes.writeInt(writer.intern(e.getValue()));
+            }
+            writeNodes(reader, nodes);
+            count++;
+        }
+        out.writeInt(count);
+        bytes.writeTo(out);
+    }
+}
@@ -0,0 +1,167 @@
+package software.blob.ui.view.layout;
+
+import software.blob.ui.util.Log;
+import software.blob.ui.view.resource.ResourceMap;
+
+import javax.swing.SwingUtilities;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the loose layout and values directories for changes during development
+ *
+ * Only the two resource directories are registered with the file system's {@link WatchService}.
+ * When a layout changes, its compiled plan is discarded. When a values file changes, only the
+ * values it defines (and the styles and layouts which depend on them) are invalidated.
+ * Listeners are notified on the event dispatch thread so live views can be inflated again.
+ *
+ * Typical usage:
+ * <pre>
+ * ResourceWatcher.addListener((layouts, keys) -> rebuildContent());
+ * ResourceWatcher.start();
+ * </pre>
+ */
+public class ResourceWatcher {
+
+    // Time to wait for more events after a change, since editors often write a file in several steps
+    private static final long DEBOUNCE_MS = 100;
+
+    /**
+     * Notified after resources have been invalidated
+     */
+    public interface Listener {
+
+        /**
+         * Resources have changed on disk
+         * @param layouts Names of the layouts that need to be inflated again (i.e. "layout_dialog.xml")
+         * @param resourceKeys Keys of the invalidated values (i.e. "color/white")
+         */
+        void onResourcesChanged(Set<String> layouts, Set<String> resourceKeys);
+    }
+
+    private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private static WatchService watcher;
+    private static Thread thread;
+
+    /**
+     * Start watching the resource directories
+     * Does nothing if already started
+     */
+    public static synchronized void start() {
+        if (watcher != null)
+            return;
+        try {
+            watcher = FileSystems.getDefault().newWatchService();
+            register(LayoutInflater.getLayoutDir());
+            register(ResourceMap.getValuesDir());
+        } catch (IOException e) {
+            Log.e("Failed to start resource watcher", e);
+            stop();
+            return;
+        }
+        WatchService ws = watcher;
+        thread = new Thread(() -> run(ws), "ResourceWatcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop watching the resource directories
+     */
+    public static synchronized void stop() {
+        if (watcher == null)
+            return;
+        try {
+            watcher.close();
+        } catch (IOException ignored) {
+        }
+        watcher = null;
+        thread = null;
+    }
+
+    public static synchronized boolean isRunning() {
+        return watcher != null;
+    }
+
+    public static void addListener(Listener l) {
+        listeners.add(l);
+    }
+
+    public static void removeListener(Listener l) {
+        listeners.remove(l);
+    }
+
+    private static void register(File dir) throws IOException {
+        if (!dir.isDirectory()) {
+            Log.w("Resource directory does not exist: " + dir);
+            return;
+        }
+        dir.toPath().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    private static void run(WatchService ws) {
+        try {
+            while (true) {
+                WatchKey key = ws.take();
+                Set<String> layoutFiles = new HashSet<>(), valuesFiles = new HashSet<>();
+                do {
+                    collect(key, layoutFiles, valuesFiles);
+                } while ((key = ws.poll(DEBOUNCE_MS, TimeUnit.MILLISECONDS)) != null);
+                onChanged(layoutFiles, valuesFiles);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+            // Stopped
+        }
+    }
+
+    private static void collect(WatchKey key, Set<String> layoutFiles, Set<String> valuesFiles) {
+        File dir = ((Path) key.watchable()).toFile();
+        boolean layouts = dir.equals(LayoutInflater.getLayoutDir());
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                Log.w("Resource watcher overflow; some changes may have been missed");
+                continue;
+            }
+            String name = event.context().toString();
+            if (!name.endsWith(".xml"))
+                continue;
+            if (layouts)
+                layoutFiles.add(name);
+            else
+                valuesFiles.add(name);
+        }
+        key.reset();
+    }
+
+    private static void onChanged(Set<String> layoutFiles, Set<String> valuesFiles) {
+        Set<String> layouts = new HashSet<>(), keys = new HashSet<>();
+        for (String name : layoutFiles) {
+            LayoutInflater.invalidate(name);
+            layouts.add(name);
+        }
+        for (String name : valuesFiles) {
+            try {
+                keys.addAll(ResourceMap.reload(new File(ResourceMap.getValuesDir(), name)));
+            } catch (Exception e) {
+                Log.e("Failed to reload " + name, e);
+            }
+        }
+        if (!keys.isEmpty())
+            layouts.addAll(LayoutInflater.invalidateResources(keys));
+        if (layouts.isEmpty() && keys.isEmpty())
+            return;
+
+        Log.d("Resources changed: " + layouts + " " + keys);
+        Set<String> l = Collections.unmodifiableSet(layouts), k = Collections.unmodifiableSet(keys);
+        SwingUtilities.invokeLater(() -> {
+            for (Listener listener : listeners)
+                listener.onResourcesChanged(l, k);
+        });
+    }
+}
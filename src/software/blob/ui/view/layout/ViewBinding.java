@@ -0,0 +1,212 @@
+package software.blob.ui.view.layout;
+
+import software.blob.ui.util.Log;
+import software.blob.ui.view.AttributeSet;
+
+import java.awt.*;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cached constructor and setter handles for a component class
+ * Used by the {@link LayoutInflater} so reflection lookups are only performed once per class
+ */
+class ViewBinding implements ViewFactory {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType ATTRS_CTOR_TYPE = MethodType.methodType(Component.class, AttributeSet.class);
+    private static final MethodType DEFAULT_CTOR_TYPE = MethodType.methodType(Component.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Component.class, Object.class);
+
+    // Class -> binding
+    private static final Map<Class<?>, ViewBinding> cache = new ConcurrentHashMap<>();
+
+    // Marks attributes that don't have a matching setter
+    private static final Setter NO_SETTER = new Setter(null, null, null);
+
+    /**
+     * Supported setter argument types and how to read them from an {@link AttributeSet}
+     * Listed in the order they're checked when looking for a setter
+     */
+    enum Argument {
+
+        STRING(String.class) {
+            @Override
+            Object read(AttributeSet attrs, String key) {
+                return attrs.get(key);
+            }
+        },
+        BOOLEAN(boolean.class) {
+            @Override
+            Object read(AttributeSet attrs, String key) {
+                return attrs.getBoolean(key, false);
+            }
+        },
+        INT(int.class) {
+            @Override
+            Object read(AttributeSet attrs, String key) {
+                return attrs.getDimension(key, 0);
+            }
+        },
+        FLOAT(float.class) {
+            @Override
+            Object read(AttributeSet attrs, String key) {
+                return attrs.getFloat(key, 0f);
+            }
+        },
+        COLOR(Color.class) {
+            @Override
+            Object read(AttributeSet attrs, String key) {
+                return attrs.getColor(key, Color.WHITE);
+            }
+        };
+
+        final Class<?> argClass;
+
+        Argument(Class<?> argClass) {
+            this.argClass = argClass;
+        }
+
+        /**
+         * Convert an attribute value to this argument type
+         * @param attrs Attribute set
+         * @param key Attribute name
+         * @return Argument value
+         */
+        abstract Object read(AttributeSet attrs, String key);
+    }
+
+    /**
+     * Resolved setter for a single attribute
+     */
+    static class Setter {
+
+        final Method method;
+        final MethodHandle handle;
+        final Argument argument;
+
+        Setter(Method method, MethodHandle handle, Argument argument) {
+            this.method = method;
+            this.handle = handle;
+            this.argument = argument;
+        }
+    }
+
+    private final Class<?> viewClass;
+    private final MethodHandle attrsCtor, defaultCtor;
+    private final Map<String, Setter> setters = new ConcurrentHashMap<>();
+
+    private ViewBinding(Class<?> viewClass) {
+        this.viewClass = viewClass;
+        this.attrsCtor = findConstructor(viewClass, ATTRS_CTOR_TYPE, AttributeSet.class);
+        this.defaultCtor = findConstructor(viewClass, DEFAULT_CTOR_TYPE);
+    }
+
+    /**
+     * Get the binding for a component class
+     * @param viewClass Component class
+     * @return Binding
+     */
+    static ViewBinding get(Class<?> viewClass) {
+        return cache.computeIfAbsent(viewClass, ViewBinding::new);
+    }
+
+    Class<?> getViewClass() {
+        return this.viewClass;
+    }
+
+    /**
+     * Check if the class has a constructor which takes an {@link AttributeSet}
+     * @return True if the class supports attribute set construction
+     */
+    boolean hasAttributesConstructor() {
+        return this.attrsCtor != null;
+    }
+
+    /**
+     * Create a new instance of the component
+     * Classes without an {@link AttributeSet} constructor are created using the
+     * default constructor and have their attributes applied through setters
+     * @param attrs Attribute set
+     * @return New component or null if failed
+     */
+    @Override
+    public Component create(AttributeSet attrs) {
+        if (attrsCtor != null) {
+            try {
+                return (Component) attrsCtor.invokeExact(attrs);
+            } catch (Throwable e) {
+                Log.e("Failed to create new instance of " + viewClass, e);
+            }
+        }
+
+        // Fallback initialization
+        if (defaultCtor == null) {
+            Log.e("Failed to initialize Component fallback: " + viewClass + " has no default constructor");
+            return null;
+        }
+        Component comp;
+        try {
+            comp = (Component) defaultCtor.invokeExact();
+        } catch (Throwable e) {
+            Log.e("Failed to initialize Component fallback: " + viewClass, e);
+            return null;
+        }
+        for (String key : attrs.keySet()) {
+            Setter setter = getSetter(key);
+            if (setter == null)
+                continue;
+            try {
+                setter.handle.invokeExact(comp, setter.argument.read(attrs, key));
+            } catch (Throwable ignore) {
+            }
+        }
+        return comp;
+    }
+
+    /**
+     * Get the setter matching an attribute name
+     * @param attrName Attribute name
+     * @return Setter or null if the class has no matching setter
+     */
+    Setter getSetter(String attrName) {
+        Setter setter = setters.computeIfAbsent(attrName, this::findSetter);
+        return setter != NO_SETTER ? setter : null;
+    }
+
+    private Setter findSetter(String attrName) {
+        if (attrName.isEmpty())
+            return NO_SETTER;
+        String mName = "set" + Character.toUpperCase(attrName.charAt(0)) + attrName.substring(1);
+        for (Argument arg : Argument.values()) {
+            Method method;
+            try {
+                method = viewClass.getMethod(mName, arg.argClass);
+            } catch (NoSuchMethodException e) {
+                continue;
+            }
+            try {
+                MethodHandle handle = LOOKUP.unreflect(method).asType(SETTER_TYPE);
+                return new Setter(method, handle, arg);
+            } catch (IllegalAccessException e) {
+                Log.w("Setter " + method + " is not accessible", e);
+            }
+        }
+        return NO_SETTER;
+    }
+
+    private static MethodHandle findConstructor(Class<?> cl, MethodType type, Class<?>... params) {
+        try {
+            return LOOKUP.unreflectConstructor(cl.getConstructor(params)).asType(type);
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (IllegalAccessException e) {
+            Log.w("Constructor for " + cl + " is not accessible", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package software.blob.ui.view.layout;
+
+import software.blob.ui.view.AttributeSet;
+
+import java.awt.*;
+
+/**
+ * Creates the component for a layout XML tag
+ * See {@link LayoutInflater#registerViewFactory(String, ViewFactory)}
+ */
+public interface ViewFactory {
+
+    /**
+     * Create a new component
+     * @param attrs Resolved attributes for the tag
+     * @return New component or null if failed
+     */
+    Component create(AttributeSet attrs);
+}
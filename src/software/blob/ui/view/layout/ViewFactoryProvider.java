@@ -0,0 +1,14 @@
+package software.blob.ui.view.layout;
+
+/**
+ * Registers view factories when the {@link ViewFactoryRegistry} is first used
+ * Implementations are discovered using {@link java.util.ServiceLoader}
+ */
+public interface ViewFactoryProvider {
+
+    /**
+     * Register view factories and/or package roots
+     * @param registry Registry to add to
+     */
+    void registerViewFactories(ViewFactoryRegistry registry);
+}
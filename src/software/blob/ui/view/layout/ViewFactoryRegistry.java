@@ -0,0 +1,136 @@
+package software.blob.ui.view.layout;
+
+import software.blob.ui.res.UsageProfile;
+import software.blob.ui.util.Log;
+
+import java.awt.*;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Maps layout XML tags to the {@link ViewFactory} used to create them
+ *
+ * Tags are resolved in the following order:
+ * 1. Factories registered through {@link #register(String, ViewFactory)}
+ *    or a {@link ViewFactoryProvider} service
+ * 2. Fully qualified class names
+ * 3. Classes in the registered package roots (most recently added first)
+ * 4. Swing classes with the "J" prefix omitted (i.e. ComboBox -> JComboBox)
+ *
+ * The result of each lookup is cached, including tags that couldn't be resolved.
+ */
+public class ViewFactoryRegistry {
+
+    // Marks tags that failed to resolve
+    private static final ViewFactory MISSING = attrs -> null;
+
+    private final Map<String, ViewFactory> registered = new ConcurrentHashMap<>();
+    private final List<String> packageRoots = new CopyOnWriteArrayList<>();
+    private final Map<String, ViewFactory> resolved = new ConcurrentHashMap<>();
+    private volatile boolean scanned;
+
+    public ViewFactoryRegistry(String... packageRoots) {
+        for (String root : packageRoots)
+            this.packageRoots.add(root);
+    }
+
+    /**
+     * Register a factory for a tag name
+     * @param tag Tag name used in layout XML
+     * @param factory View factory
+     */
+    public void register(String tag, ViewFactory factory) {
+        registered.put(tag, factory);
+        resolved.remove(tag);
+        LayoutInflater.onViewFactoriesChanged(this);
+    }
+
+    /**
+     * Register a component class under its simple class name
+     * @param viewClass Component class
+     */
+    public void register(Class<? extends Component> viewClass) {
+        register(viewClass.getSimpleName(), ViewBinding.get(viewClass));
+    }
+
+    /**
+     * Register a package root for finding component classes from their base name
+     * Package roots take priority over those registered before them
+     * @param packageRoot Package root
+     */
+    public void addPackageRoot(String packageRoot) {
+        if (packageRoots.contains(packageRoot))
+            return;
+        packageRoots.add(0, packageRoot);
+
+        // Previously missing tags may now resolve
+        resolved.clear();
+        LayoutInflater.onViewFactoriesChanged(this);
+    }
+
+    /**
+     * Get the factory for a given tag name
+     * @param tag Tag name
+     * @return View factory or null if not found
+     */
+    public ViewFactory get(String tag) {
+        UsageProfile.record(UsageProfile.Type.VIEW, tag);
+        scan();
+        ViewFactory factory = resolved.get(tag);
+        if (factory == null) {
+            factory = resolve(tag);
+            resolved.put(tag, factory);
+        }
+        return factory != MISSING ? factory : null;
+    }
+
+    /**
+     * Load any {@link ViewFactoryProvider} services (only performed once)
+     */
+    private void scan() {
+        if (scanned)
+            return;
+        synchronized (this) {
+            if (scanned)
+                return;
+            scanned = true;
+            try {
+                for (ViewFactoryProvider provider : ServiceLoader.load(ViewFactoryProvider.class))
+                    provider.registerViewFactories(this);
+            } catch (ServiceConfigurationError e) {
+                Log.e("Failed to load view factory providers", e);
+            }
+        }
+    }
+
+    private ViewFactory resolve(String tag) {
+        ViewFactory factory = registered.get(tag);
+        if (factory != null)
+            return factory;
+
+        Class<?> cl = null;
+        if (tag.contains("."))
+            cl = loadClass(tag);
+        for (int i = 0; cl == null && i < packageRoots.size(); i++)
+            cl = loadClass(packageRoots.get(i) + "." + tag);
+        if (cl == null)
+            cl = loadClass("javax.swing.J" + tag);
+
+        if (cl == null || !Component.class.isAssignableFrom(cl))
+            return MISSING;
+
+        return ViewBinding.get(cl);
+    }
+
+    private static Class<?> loadClass(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException | LinkageError ignore) {
+            return null;
+        }
+    }
+}
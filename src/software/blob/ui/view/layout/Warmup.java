@@ -0,0 +1,205 @@
+package software.blob.ui.view.layout;
+
+import software.blob.ui.res.Resources;
+import software.blob.ui.res.UsageProfile;
+import software.blob.ui.util.Log;
+import software.blob.ui.view.resource.ResourceMap;
+
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads the resources recorded in a {@link UsageProfile} manifest in parallel on the
+ * {@link LayoutInflater} executor, so they're ready by the time the first window needs them
+ *
+ * Typical usage:
+ * <pre>
+ * Warmup.start(new File("warmup.txt"));
+ * Warmup.watchFirstFrame(mainFrame);
+ * UsageProfile.setRecording(true); // Write the manifest again on exit
+ * </pre>
+ */
+public class Warmup {
+
+    private static final Object lock = new Object();
+    private static Report current;
+
+    /**
+     * Warmup timing
+     */
+    public static class Report {
+
+        private final long startTime = System.nanoTime();
+        private final AtomicInteger count = new AtomicInteger(), finished = new AtomicInteger();
+        private final AtomicLong workNanos = new AtomicLong(), hiddenNanos = new AtomicLong();
+        private volatile long endTime, firstFrameTime;
+
+        /**
+         * Get the number of resources in the manifest
+         * @return Resource count
+         */
+        public int getCount() {
+            return count.get();
+        }
+
+        /**
+         * Get the number of resources loaded so far
+         * @return Loaded count
+         */
+        public int getFinishedCount() {
+            return finished.get();
+        }
+
+        /**
+         * Get the total time spent loading resources on the worker threads
+         * @return Time in milliseconds
+         */
+        public long getWorkMillis() {
+            return workNanos.get() / 1000000;
+        }
+
+        /**
+         * Get the loading time that finished before the first frame was shown
+         * This work would otherwise have been done on the event dispatch thread
+         * @return Time in milliseconds
+         */
+        public long getHiddenMillis() {
+            return hiddenNanos.get() / 1000000;
+        }
+
+        /**
+         * Get the time from the start of warmup until the first frame was shown
+         * @return Time in milliseconds or -1 if the first frame hasn't been shown
+         */
+        public long getFirstFrameMillis() {
+            long t = firstFrameTime;
+            return t != 0 ? (t - startTime) / 1000000 : -1;
+        }
+
+        /**
+         * Get the time from the start of warmup until all resources were loaded
+         * @return Time in milliseconds or -1 if still loading
+         */
+        public long getElapsedMillis() {
+            long t = endTime;
+            return t != 0 ? (t - startTime) / 1000000 : -1;
+        }
+
+        private void task(Runnable r) {
+            long start = System.nanoTime();
+            try {
+                r.run();
+            } catch (Exception e) {
+                Log.w("Warmup task failed", e);
+            }
+            long time = System.nanoTime() - start;
+            workNanos.addAndGet(time);
+            if (firstFrameTime == 0)
+                hiddenNanos.addAndGet(time);
+            finished.incrementAndGet();
+        }
+
+        @Override
+        public String toString() {
+            long firstFrame = getFirstFrameMillis();
+            return "Warmup: " + getFinishedCount() + "/" + getCount() + " resources, "
+                    + getWorkMillis() + "ms of work, " + getHiddenMillis() + "ms hidden before first frame"
+                    + (firstFrame >= 0 ? " (" + firstFrame + "ms)" : "");
+        }
+    }
+
+    /**
+     * Start loading the resources in a manifest
+     * Views and styles are loaded before the layouts which use them, everything else runs in parallel.
+     * @param manifest Manifest written by {@link UsageProfile#write(File)}
+     * @return Future report which completes once every resource is loaded
+     */
+    public static CompletableFuture<Report> start(File manifest) {
+        Map<UsageProfile.Type, List<String>> entries;
+        try {
+            entries = UsageProfile.read(manifest);
+        } catch (IOException e) {
+            Log.w("Failed to read warmup manifest " + manifest, e);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Report report = new Report();
+        synchronized (lock) {
+            current = report;
+        }
+
+        List<CompletableFuture<?>> first = new ArrayList<>();
+        for (String tag : entries.get(UsageProfile.Type.VIEW))
+            first.add(submit(report, () -> LayoutInflater.getViewFactoryRegistry().get(tag)));
+        for (String style : entries.get(UsageProfile.Type.STYLE))
+            first.add(submit(report, () -> ResourceMap.getStyleResource("style/" + style)));
+
+        List<CompletableFuture<?>> all = new ArrayList<>(first);
+        for (String icon : entries.get(UsageProfile.Type.ICON))
+            all.add(submit(report, () -> Resources.getImage(icon)));
+
+        // Layouts resolve view classes and styles as they compile
+        CompletableFuture<Void> deps = CompletableFuture.allOf(first.toArray(new CompletableFuture<?>[0]));
+        for (String layout : entries.get(UsageProfile.Type.LAYOUT)) {
+            report.count.incrementAndGet();
+            all.add(deps.thenRunAsync(() -> report.task(() -> LayoutInflater.getPlan(layout)),
+                    LayoutInflater.getExecutor()));
+        }
+
+        return CompletableFuture.allOf(all.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            report.endTime = System.nanoTime();
+            Log.d(report.toString());
+            return report;
+        });
+    }
+
+    /**
+     * Get the report of the most recent warmup
+     * @return Report or null if warmup hasn't been started
+     */
+    public static Report getReport() {
+        synchronized (lock) {
+            return current;
+        }
+    }
+
+    /**
+     * Mark the first frame as shown
+     * Warmup work finished after this point is no longer counted as hidden
+     */
+    public static void markFirstFrame() {
+        Report report = getReport();
+        if (report == null || report.firstFrameTime != 0)
+            return;
+        report.firstFrameTime = System.nanoTime();
+        Log.d(report.toString());
+    }
+
+    /**
+     * Mark the first frame as shown once a window opens
+     * @param window First window
+     */
+    public static void watchFirstFrame(Window window) {
+        window.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                window.removeWindowListener(this);
+                markFirstFrame();
+            }
+        });
+    }
+
+    private static CompletableFuture<Void> submit(Report report, Runnable task) {
+        report.count.incrementAndGet();
+        return CompletableFuture.runAsync(() -> report.task(task), LayoutInflater.getExecutor());
+    }
+}
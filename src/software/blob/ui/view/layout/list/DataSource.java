@@ -0,0 +1,28 @@
+package software.blob.ui.view.layout.list;
+
+import java.util.List;
+
+/**
+ * Loads the items shown by a {@link PagedListAdapter}
+ * Both methods are called on a background thread.
+ * @param <T> Item type
+ */
+public interface DataSource<T> {
+
+    /**
+     * Get the total number of items
+     * @return Number of items
+     * @throws Exception Loading failed
+     */
+    int getCount() throws Exception;
+
+    /**
+     * Load a page of items
+     * The thread is interrupted if the page scrolls out of view before it's loaded.
+     * @param start Position of the first item
+     * @param count Number of items to load (may be less at the end of the list)
+     * @return Items
+     * @throws Exception Loading failed or was interrupted
+     */
+    List<T> loadPage(int start, int count) throws Exception;
+}
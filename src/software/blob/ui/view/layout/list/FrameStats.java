@@ -0,0 +1,94 @@
+package software.blob.ui.view.layout.list;
+
+/**
+ * Frame timing for a {@link ListView} while it's being scrolled
+ *
+ * A frame is late if its refresh didn't finish within one frame interval of when it was due
+ * (i.e. the event queue was busy or the refresh itself was too slow). Each additional frame
+ * interval it took counts as a dropped frame.
+ *
+ * Typical usage:
+ * <pre>
+ * list.getFrameStats().reset();
+ * // ...scroll the list
+ * Log.d(list.getFrameStats().getSummary());
+ * </pre>
+ */
+public class FrameStats {
+
+    private long frames, lateFrames, droppedFrames;
+    private long totalNanos, maxNanos;
+
+    /**
+     * Reset all counters to zero
+     */
+    public void reset() {
+        frames = lateFrames = droppedFrames = 0;
+        totalNanos = maxNanos = 0;
+    }
+
+    /**
+     * Get the number of frames refreshed while scrolling
+     * @return Frame count
+     */
+    public long getFrameCount() {
+        return frames;
+    }
+
+    /**
+     * Get the number of frames which finished after their deadline
+     * @return Late frame count
+     */
+    public long getLateFrameCount() {
+        return lateFrames;
+    }
+
+    /**
+     * Get the number of whole frame intervals missed by late frames
+     * @return Dropped frame count
+     */
+    public long getDroppedFrameCount() {
+        return droppedFrames;
+    }
+
+    /**
+     * Get the longest time spent refreshing a single frame
+     * @return Time in milliseconds
+     */
+    public double getMaxRefreshMillis() {
+        return maxNanos / 1e6;
+    }
+
+    /**
+     * Get the average time spent refreshing a frame
+     * @return Time in milliseconds
+     */
+    public double getAverageRefreshMillis() {
+        return frames > 0 ? totalNanos / 1e6 / frames : 0;
+    }
+
+    public String getSummary() {
+        return String.format("Frames: %d refreshed, %d late, %d dropped, %.2fms avg, %.2fms max",
+                frames, lateFrames, droppedFrames, getAverageRefreshMillis(), getMaxRefreshMillis());
+    }
+
+    /**
+     * Record a frame
+     * @param due Time the refresh was scheduled for
+     * @param start Time the refresh started
+     * @param end Time the refresh finished
+     * @param interval Frame interval
+     */
+    void onFrame(long due, long start, long end, long interval) {
+        long refresh = end - start;
+        frames++;
+        totalNanos += refresh;
+        maxNanos = Math.max(maxNanos, refresh);
+
+        long late = end - (due + interval);
+        if (late > 0) {
+            lateFrames++;
+            droppedFrames += late / interval;
+        }
+    }
+}
@@ -0,0 +1,545 @@
+package software.blob.ui.view.layout.list;
+
+import software.blob.ui.view.AttributeSet;
+import software.blob.ui.view.View;
+
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+import java.awt.event.MouseEvent;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Performance-friendly grid layout
+ *
+ * Items come from a regular {@link ListAdapter} and are laid out left to right in rows.
+ * Each row of the underlying {@link ListView} holds one cell per column, so only the rows
+ * on screen exist as components and cells are reused along with their row. Cells which
+ * no longer fit a row go into the pool returned by {@link #getRecycledViewPool()}.
+ *
+ * Cells either have a fixed size, with as many columns as fit the width of the grid,
+ * or there's a fixed number of columns which share the width. Cells are square unless
+ * a cell height is set.
+ *
+ * The arrow, home/end and page up/down keys move the selection while the grid has focus.
+ * Adapters can check {@link #getSelectedPosition()} when binding a cell.
+ */
+public class GridView extends ListView implements KeyListener {
+
+    // Payload sent to the adapter when only the selection state of a cell has changed
+    public static final Object SELECTION_PAYLOAD = new Object();
+
+    public interface OnSelectionChangedListener {
+
+        /**
+         * Called when the selected cell has changed
+         * @param grid Grid view
+         * @param position Selected position or -1 if none
+         */
+        void onSelectionChanged(GridView grid, int position);
+    }
+
+    private final GridAdapter rowAdapter = new GridAdapter();
+    private ListAdapter adapter;
+    private RecycledViewPool cellPool = new RecycledViewPool();
+
+    // Fixed column count or cell size (0 if not set)
+    private int fixedColumns, cellWidth, cellHeight;
+
+    // Current layout
+    private int columns = 1;
+    private int layoutWidth, rowHeight;
+
+    // Number of cells the rows were last laid out for
+    private int cellCount;
+    private int batchDepth;
+
+    private int selectedPosition = -1;
+    private OnSelectionChangedListener selectionListener;
+
+    public GridView(AttributeSet attrs) {
+        super(attrs);
+        this.fixedColumns = Math.max(0, attrs.getInteger("columns", 0));
+        this.cellWidth = Math.max(0, attrs.getDimension("cellWidth", 0));
+        this.cellHeight = Math.max(0, attrs.getDimension("cellHeight", 0));
+        if (this.fixedColumns > 0)
+            this.columns = this.fixedColumns;
+
+        // Keep the viewport width constant so the column count doesn't flip as the scrollbar comes and goes
+        if (getVerticalScrollBarPolicy() == VERTICAL_SCROLLBAR_AS_NEEDED)
+            setVerticalScrollBarPolicy(VERTICAL_SCROLLBAR_ALWAYS);
+
+        setFocusable(true);
+        addKeyListener(this);
+    }
+
+    /**
+     * Set the view adapter for this grid
+     * Each item in the adapter is shown as one cell.
+     * @param adapter Cell adapter
+     */
+    @Override
+    public void setAdapter(ListAdapter adapter) {
+        this.adapter = adapter;
+        this.selectedPosition = -1;
+        if (adapter != null)
+            adapter.setListView(this);
+        super.setAdapter(adapter != null ? rowAdapter : null);
+    }
+
+    /**
+     * Set the pool that cells which are no longer used are put into
+     * View types are those returned by the cell adapter.
+     * @param pool Pool, which may be shared with other grids (null to use a new one)
+     */
+    @Override
+    public void setRecycledViewPool(RecycledViewPool pool) {
+        this.cellPool = pool != null ? pool : new RecycledViewPool();
+    }
+
+    @Override
+    public RecycledViewPool getRecycledViewPool() {
+        return this.cellPool;
+    }
+
+    /**
+     * Use a fixed number of columns which share the width of the grid
+     * @param columns Number of columns (0 to fit as many fixed-size cells as possible)
+     */
+    public void setColumnCount(int columns) {
+        this.fixedColumns = Math.max(0, columns);
+        updateColumns(true);
+    }
+
+    /**
+     * Get the number of columns currently shown
+     * @return Number of columns
+     */
+    public int getColumnCount() {
+        return this.columns;
+    }
+
+    /**
+     * Set the size of each cell
+     * Unless a column count is set, as many columns as fit the width are shown.
+     * @param width Cell width (0 to share the width between the columns)
+     * @param height Cell height (0 for square cells)
+     */
+    public void setCellSize(int width, int height) {
+        this.cellWidth = Math.max(0, width);
+        this.cellHeight = Math.max(0, height);
+        updateColumns(true);
+    }
+
+    /**
+     * Select a cell and scroll to it
+     * @param pos Position or -1 to clear the selection
+     */
+    public void setSelectedPosition(int pos) {
+        if (pos < -1 || pos >= cellCount || pos == selectedPosition)
+            return;
+        int old = selectedPosition;
+        selectedPosition = pos;
+        if (old != -1)
+            adapter.notifyItemChanged(old, SELECTION_PAYLOAD);
+        if (pos != -1) {
+            adapter.notifyItemChanged(pos, SELECTION_PAYLOAD);
+            scrollToPosition(pos);
+        }
+        if (selectionListener != null)
+            selectionListener.onSelectionChanged(this, pos);
+    }
+
+    public int getSelectedPosition() {
+        return this.selectedPosition;
+    }
+
+    public void setOnSelectionChangedListener(OnSelectionChangedListener l) {
+        this.selectionListener = l;
+    }
+
+    /**
+     * Scroll to the row containing a cell
+     * @param pos Cell position
+     */
+    @Override
+    public void scrollToPosition(int pos) {
+        if (pos >= 0 && pos < cellCount)
+            super.scrollToPosition(pos / columns);
+    }
+
+    @Override
+    public int getFirstVisiblePosition() {
+        return Math.min(super.getFirstVisiblePosition() * columns, Math.max(0, cellCount - 1));
+    }
+
+    @Override
+    public int getLastVisiblePosition() {
+        return Math.min((super.getLastVisiblePosition() + 1) * columns, cellCount) - 1;
+    }
+
+    @Override
+    public void refresh() {
+        cellCount = getCellCount();
+        super.refresh();
+    }
+
+    @Override
+    public void doLayout() {
+        super.doLayout();
+        updateColumns(false);
+    }
+
+    /**
+     * Lay the cells out again if the width of the grid or the cell size changed
+     * @param force True to rebind the rows even if the width is the same
+     */
+    private void updateColumns(boolean force) {
+        int width = getViewport().getWidth();
+        if (width <= 0 || width == layoutWidth && !force)
+            return;
+        layoutWidth = width;
+
+        int cols = fixedColumns > 0 ? fixedColumns : (cellWidth > 0 ? Math.max(1, width / cellWidth) : 1);
+        int height = cellHeight > 0 ? cellHeight : getCellWidth(cols);
+        if (cols == columns && height == rowHeight) {
+            refresh();
+            return;
+        }
+
+        // The rows are different, so keep the first visible cell on screen
+        int first = getFirstVisiblePosition();
+        boolean scrolled = getVerticalScrollBar().getValue() > 0;
+        columns = cols;
+        rowHeight = height;
+        setRowHeightEstimate(height);
+        onDatasetChanged();
+        if (scrolled)
+            scrollToPosition(first);
+    }
+
+    private int getCellWidth(int cols) {
+        return cellWidth > 0 ? cellWidth : Math.max(1, layoutWidth / cols);
+    }
+
+    private int getCellCount() {
+        return adapter != null ? adapter.getCount() : 0;
+    }
+
+    private int getRowCount(int cells) {
+        return (cells + columns - 1) / columns;
+    }
+
+    @Override
+    void onItemRangeChanged(int start, int count, Object payload) {
+        int end = Math.min(start + count, cellCount);
+        if (start < 0 || start >= end)
+            return;
+        int startRow = start / columns;
+        rebindRows(startRow, (end - 1) / columns - startRow + 1, start, end, payload);
+    }
+
+    @Override
+    void beginUpdates() {
+        batchDepth++;
+        super.beginUpdates();
+    }
+
+    @Override
+    void endUpdates() {
+        super.endUpdates();
+        if (batchDepth > 0 && --batchDepth == 0 && cellCount != getCellCount())
+            onDatasetChanged();
+    }
+
+    /**
+     * Add rows at the end for the new cells and lay out the cells after them again
+     */
+    @Override
+    void onItemRangeInserted(int start, int count) {
+        if (start < 0 || start > cellCount || batchDepth == 0 && cellCount + count != getCellCount()) {
+            onDatasetChanged();
+            return;
+        }
+        int oldRows = getRowCount(cellCount);
+        cellCount += count;
+        int newRows = getRowCount(cellCount);
+        if (newRows > oldRows)
+            super.onItemRangeInserted(oldRows, newRows - oldRows);
+        if (selectedPosition >= start)
+            selectedPosition += count;
+        int startRow = start / columns;
+        rebindRows(startRow, oldRows - startRow, start, cellCount, null);
+    }
+
+    /**
+     * Drop the rows at the end which are no longer needed and lay out the cells after the removed ones again
+     */
+    @Override
+    void onItemRangeRemoved(int start, int count) {
+        if (start < 0 || start + count > cellCount || batchDepth == 0 && cellCount - count != getCellCount()) {
+            onDatasetChanged();
+            return;
+        }
+        int oldRows = getRowCount(cellCount);
+        cellCount -= count;
+        int newRows = getRowCount(cellCount);
+        if (newRows < oldRows)
+            super.onItemRangeRemoved(newRows, oldRows - newRows);
+        int startRow = start / columns;
+        if (selectedPosition >= start + count)
+            selectedPosition -= count;
+        else if (selectedPosition >= start)
+            clearSelection();
+        rebindRows(startRow, newRows - startRow, start, cellCount, null);
+    }
+
+    @Override
+    void onItemMoved(int from, int to) {
+        if (from < 0 || to < 0 || from >= cellCount || to >= cellCount
+                || batchDepth == 0 && cellCount != getCellCount()) {
+            onDatasetChanged();
+            return;
+        }
+        if (selectedPosition == from)
+            selectedPosition = to;
+        else if (from < selectedPosition && selectedPosition <= to)
+            selectedPosition--;
+        else if (to <= selectedPosition && selectedPosition < from)
+            selectedPosition++;
+        int start = Math.min(from, to), end = Math.max(from, to) + 1;
+        int startRow = start / columns;
+        rebindRows(startRow, (end - 1) / columns - startRow + 1, start, end, null);
+    }
+
+    /**
+     * Drop the selection after the selected item was removed
+     * The cell itself is bound again along with the cells after it.
+     */
+    private void clearSelection() {
+        selectedPosition = -1;
+        if (selectionListener != null)
+            selectionListener.onSelectionChanged(this, -1);
+    }
+
+    /**
+     * Bind the cells in a range again, leaving the other cells in their rows alone
+     */
+    private void rebindRows(int startRow, int rows, int start, int end, Object payload) {
+        if (rows <= 0)
+            return;
+        rowAdapter.changedStart = start;
+        rowAdapter.changedEnd = end;
+        try {
+            super.onItemRangeChanged(startRow, rows, payload);
+        } finally {
+            rowAdapter.changedStart = 0;
+            rowAdapter.changedEnd = Integer.MAX_VALUE;
+        }
+    }
+
+    @Override
+    public void keyPressed(KeyEvent e) {
+        int code = e.getKeyCode();
+        if (cellCount == 0 || !isNavigationKey(code))
+            return;
+        int pos = selectedPosition;
+        if (pos == -1)
+            pos = getFirstVisiblePosition();
+        else {
+            int page = columns * Math.max(1, (getLastVisiblePosition() - getFirstVisiblePosition()) / columns);
+            switch (code) {
+                case KeyEvent.VK_LEFT:
+                    pos--;
+                    break;
+                case KeyEvent.VK_RIGHT:
+                    pos++;
+                    break;
+                case KeyEvent.VK_UP:
+                    pos -= columns;
+                    break;
+                case KeyEvent.VK_DOWN:
+                    // Move to the last cell if the row below is shorter
+                    if (pos / columns < (cellCount - 1) / columns)
+                        pos = Math.min(pos + columns, cellCount - 1);
+                    break;
+                case KeyEvent.VK_PAGE_UP:
+                    pos = pos >= columns ? Math.max(pos % columns, pos - page) : pos;
+                    break;
+                case KeyEvent.VK_PAGE_DOWN:
+                    pos = Math.min(pos + page, cellCount - 1);
+                    break;
+                case KeyEvent.VK_HOME:
+                    pos = 0;
+                    break;
+                case KeyEvent.VK_END:
+                    pos = cellCount - 1;
+                    break;
+            }
+        }
+        if (pos >= 0 && pos < cellCount)
+            setSelectedPosition(pos);
+        e.consume();
+    }
+
+    private static boolean isNavigationKey(int code) {
+        switch (code) {
+            case KeyEvent.VK_LEFT:
+            case KeyEvent.VK_RIGHT:
+            case KeyEvent.VK_UP:
+            case KeyEvent.VK_DOWN:
+            case KeyEvent.VK_PAGE_UP:
+            case KeyEvent.VK_PAGE_DOWN:
+            case KeyEvent.VK_HOME:
+            case KeyEvent.VK_END:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public void keyTyped(KeyEvent e) {
+    }
+
+    @Override
+    public void keyReleased(KeyEvent e) {
+    }
+
+    private void onCellClicked(GridRow row, MouseEvent e) {
+        int col = e.getX() / getCellWidth(columns);
+        if (col < row.cellCount)
+            setSelectedPosition(row.firstCell + col);
+        requestFocusInWindow();
+    }
+
+    /**
+     * Binds rows of cells for the underlying list
+     */
+    private class GridAdapter extends ListAdapter {
+
+        // Cells which need to be bound again when a row is rebound in place
+        private int changedStart, changedEnd = Integer.MAX_VALUE;
+
+        @Override
+        public int getCount() {
+            // Nothing is shown until the width is known
+            return rowHeight > 0 ? getRowCount(cellCount) : 0;
+        }
+
+        @Override
+        public Object getItem(int position) {
+            return null;
+        }
+
+        @Override
+        public View getView(int position, View existing, ListView list) {
+            return getView(position, existing, list, Collections.emptyList());
+        }
+
+        @Override
+        public View getView(int position, View existing, ListView list, List<Object> payloads) {
+            GridRow row = existing instanceof GridRow ? (GridRow) existing : new GridRow();
+            int first = position * columns;
+            int count = Math.min(columns, cellCount - first);
+            boolean inPlace = row.firstCell == first && row.cells.length == columns;
+            row.bind(first, count, inPlace ? changedStart : 0, inPlace ? changedEnd : Integer.MAX_VALUE, payloads);
+            return row;
+        }
+
+        @Override
+        public void onVisibleRangeChanged(int first, int last) {
+            if (adapter != null && cellCount > 0)
+                adapter.onVisibleRangeChanged(first * columns, Math.min((last + 1) * columns, cellCount) - 1);
+        }
+    }
+
+    /**
+     * Row of cells
+     */
+    private class GridRow extends View {
+
+        private View[] cells = new View[0];
+        private int[] types = new int[0];
+        private int firstCell = -1, cellCount;
+
+        GridRow() {
+            setLayout(null);
+            setOnClickListener((v, e) -> onCellClicked(this, e));
+        }
+
+        /**
+         * Bind the cells in this row
+         * @param first Position of the first cell
+         * @param count Number of cells
+         * @param start First position to bind again if the cell is already bound
+         * @param end Position after the last to bind again
+         * @param payloads Payloads for the cells being bound
+         */
+        private void bind(int first, int count, int start, int end, List<Object> payloads) {
+            if (cells.length != columns) {
+                for (int i = columns; i < cells.length; i++)
+                    recycle(i);
+                cells = Arrays.copyOf(cells, columns);
+                types = Arrays.copyOf(types, columns);
+            }
+
+            for (int i = 0; i < columns; i++) {
+                int pos = first + i;
+                if (i >= count) {
+                    recycle(i);
+                    continue;
+                }
+                if (cells[i] != null && (pos < start || pos >= end))
+                    continue;
+
+                int type = adapter.getItemViewType(pos);
+                View cell = cells[i];
+                if (cell != null && types[i] != type) {
+                    recycle(i);
+                    cell = null;
+                }
+                View existing = cell != null ? cell : cellPool.getRecycledView(type);
+                View v = adapter.getView(pos, existing, GridView.this,
+                        cell != null ? payloads : Collections.emptyList());
+                if (existing != null && v != existing) {
+                    if (existing == cell)
+                        recycle(i);
+                    else
+                        cellPool.putRecycledView(type, existing);
+                }
+                if (v != null && v != cells[i]) {
+                    add(v);
+                    cells[i] = v;
+                }
+                types[i] = type;
+            }
+            this.firstCell = first;
+            this.cellCount = count;
+
+            int width = Math.max(layoutWidth, columns * getCellWidth(columns));
+            setPreferredSize(new Dimension(width, rowHeight));
+            setSize(width, rowHeight);
+            doLayout();
+        }
+
+        private void recycle(int i) {
+            View cell = cells[i];
+            if (cell == null)
+                return;
+            remove(cell);
+            cellPool.putRecycledView(types[i], cell);
+            cells[i] = null;
+        }
+
+        @Override
+        public void doLayout() {
+            int width = getCellWidth(columns);
+            for (int i = 0; i < cells.length; i++) {
+                if (cells[i] != null)
+                    cells[i].setBounds(i * width, 0, width, rowHeight);
+            }
+        }
+    }
+}
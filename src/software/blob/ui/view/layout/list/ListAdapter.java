@@ -2,6 +2,8 @@ package software.blob.ui.view.layout.list;
 
 import software.blob.ui.view.View;
 
+import java.util.List;
+
 /**
  * Used to generate views for a {@link ListView}
  */
@@ -22,21 +24,147 @@ public abstract class ListAdapter {
      */
     public abstract Object getItem(int position);
 
+    /**
+     * Get the type of view used for an item
+     * Rows are only reused for items with the same view type.
+     * @param position Position index
+     * @return View type between 0 and {@link #getViewTypeCount()} - 1
+     */
+    public int getItemViewType(int position) {
+        return 0;
+    }
+
+    /**
+     * Get the number of view types returned by {@link #getItemViewType(int)}
+     * @return Number of view types
+     */
+    public int getViewTypeCount() {
+        return 1;
+    }
+
     /**
      * Get/create the view at the given position
      * @param position Position index
-     * @param existing Existing view (null if it needs to be created)
+     * @param existing Existing view of the same view type (null if it needs to be created)
      * @param list List that is requesting this view
      * @return New or updated view
      */
     public abstract View getView(int position, View existing, ListView list);
 
+    /**
+     * Update an existing view for an item that has changed
+     * Override this to apply payloads without binding the entire row again.
+     * @param position Position index
+     * @param existing Existing view bound to this position
+     * @param list List that is requesting this view
+     * @param payloads Payloads passed to the notify call (empty for a full bind)
+     * @return Updated view
+     */
+    public View getView(int position, View existing, ListView list, List<Object> payloads) {
+        return getView(position, existing, list);
+    }
+
     /**
      * Notify that the data in this adapter has been changed in some way
+     * Every visible row is bound again; prefer the methods below when the change is known.
      */
     public void notifyDatasetChanged() {
         if (this.listView != null)
-            this.listView.refresh();
+            this.listView.onDatasetChanged();
+    }
+
+    /**
+     * Notify that an item has changed
+     * @param position Position index
+     */
+    public void notifyItemChanged(int position) {
+        notifyItemRangeChanged(position, 1, null);
+    }
+
+    /**
+     * Notify that an item has changed
+     * @param position Position index
+     * @param payload Passed to {@link #getView(int, View, ListView, List)} (null for a full bind)
+     */
+    public void notifyItemChanged(int position, Object payload) {
+        notifyItemRangeChanged(position, 1, payload);
+    }
+
+    /**
+     * Notify that a range of items have changed
+     * @param start First position
+     * @param count Number of items
+     */
+    public void notifyItemRangeChanged(int start, int count) {
+        notifyItemRangeChanged(start, count, null);
+    }
+
+    /**
+     * Notify that a range of items have changed
+     * Only the rows currently on screen are bound again.
+     * @param start First position
+     * @param count Number of items
+     * @param payload Passed to {@link #getView(int, View, ListView, List)} (null for a full bind)
+     */
+    public void notifyItemRangeChanged(int start, int count, Object payload) {
+        if (this.listView != null && count > 0)
+            this.listView.onItemRangeChanged(start, count, payload);
+    }
+
+    /**
+     * Notify that an item has been inserted
+     * @param position Position of the new item
+     */
+    public void notifyItemInserted(int position) {
+        notifyItemRangeInserted(position, 1);
+    }
+
+    /**
+     * Notify that a range of items have been inserted
+     * Rows for existing items are shifted without being bound again.
+     * @param start Position of the first new item
+     * @param count Number of items
+     */
+    public void notifyItemRangeInserted(int start, int count) {
+        if (this.listView != null && count > 0)
+            this.listView.onItemRangeInserted(start, count);
+    }
+
+    /**
+     * Notify that an item has been removed
+     * @param position Previous position of the item
+     */
+    public void notifyItemRemoved(int position) {
+        notifyItemRangeRemoved(position, 1);
+    }
+
+    /**
+     * Notify that a range of items have been removed
+     * Rows for the remaining items are shifted without being bound again.
+     * @param start Previous position of the first removed item
+     * @param count Number of items
+     */
+    public void notifyItemRangeRemoved(int start, int count) {
+        if (this.listView != null && count > 0)
+            this.listView.onItemRangeRemoved(start, count);
+    }
+
+    /**
+     * Notify that an item has moved
+     * @param from Previous position
+     * @param to New position
+     */
+    public void notifyItemMoved(int from, int to) {
+        if (this.listView != null)
+            this.listView.onItemMoved(from, to);
+    }
+
+    /**
+     * Called after the rows on screen have changed
+     * @param first Position of the first visible row
+     * @param last Position of the last visible row
+     */
+    public void onVisibleRangeChanged(int first, int last) {
     }
 
     /**
@@ -0,0 +1,361 @@
+package software.blob.ui.view.layout.list;
+
+import javax.swing.*;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Computes the updates needed to turn one list of items into another
+ *
+ * Uses Myers' algorithm to find the items which stay in place, then pairs up removed and
+ * inserted items which are the same as moves. The result is dispatched to a {@link ListAdapter}
+ * as granular notifications so unchanged rows keep their views and the scroll position.
+ *
+ * Typical usage:
+ * <pre>
+ * ListDiff.calculateAsync(oldItems, newItems, callback).thenAccept(diff -> {
+ *     adapter.setItems(newItems);
+ *     diff.dispatchUpdatesTo(adapter);
+ * });
+ * </pre>
+ */
+public class ListDiff {
+
+    // Lists at least this long (combined) are diffed in the background by calculateAsync
+    public static final int ASYNC_THRESHOLD = 1000;
+
+    // Lists with more edits than this are reported as entirely changed
+    public static final int MAX_EDIT_DISTANCE = 1000;
+
+    // More structural updates than this are dispatched as a single dataset change
+    public static final int MAX_UPDATES = 100;
+
+    /**
+     * Compares items in the old and new lists
+     * @param <T> Item type
+     */
+    public interface Callback<T> {
+
+        /**
+         * Check if two items represent the same entity (i.e. have the same ID)
+         * @param oldItem Item from the old list
+         * @param newItem Item from the new list
+         * @return True if the same
+         */
+        boolean areItemsTheSame(T oldItem, T newItem);
+
+        /**
+         * Check if the displayed contents of the same item are unchanged
+         * Only called for items where {@link #areItemsTheSame(Object, Object)} is true.
+         * @param oldItem Item from the old list
+         * @param newItem Item from the new list
+         * @return True if unchanged
+         */
+        boolean areContentsTheSame(T oldItem, T newItem);
+    }
+
+    /**
+     * Compute the diff between two lists
+     * @param oldList Old items
+     * @param newList New items
+     * @param callback Item comparison
+     * @param <T> Item type
+     * @return Diff result
+     */
+    public static <T> Result calculate(List<T> oldList, List<T> newList, Callback<T> callback) {
+        int n = oldList.size(), m = newList.size();
+        int[] oldToNew = new int[n], newToOld = new int[m];
+        Arrays.fill(oldToNew, -1);
+        Arrays.fill(newToOld, -1);
+        if (!match(oldList, newList, callback, oldToNew, newToOld))
+            return new Result(n, m);
+
+        // Pair up removed and inserted items which are the same as moves
+        List<Integer> removed = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (oldToNew[i] == -1)
+                removed.add(i);
+        }
+        boolean[] moved = new boolean[m];
+        for (int j = 0; j < m && !removed.isEmpty(); j++) {
+            if (newToOld[j] != -1)
+                continue;
+            for (Iterator<Integer> it = removed.iterator(); it.hasNext(); ) {
+                int i = it.next();
+                if (callback.areItemsTheSame(oldList.get(i), newList.get(j))) {
+                    oldToNew[i] = j;
+                    newToOld[j] = i;
+                    moved[j] = true;
+                    it.remove();
+                    break;
+                }
+            }
+        }
+
+        boolean[] changed = new boolean[m];
+        for (int j = 0; j < m; j++) {
+            int i = newToOld[j];
+            changed[j] = i != -1 && !callback.areContentsTheSame(oldList.get(i), newList.get(j));
+        }
+        return new Result(oldToNew, newToOld, moved, changed);
+    }
+
+    /**
+     * Compute the diff between two lists, in the background if they're large
+     * The lists must not be modified until the future completes.
+     * @param oldList Old items
+     * @param newList New items
+     * @param callback Item comparison (called on a background thread for large lists)
+     * @param <T> Item type
+     * @return Future result, completed on the event dispatch thread for large lists
+     *         (and immediately for small ones)
+     */
+    public static <T> CompletableFuture<Result> calculateAsync(List<T> oldList, List<T> newList,
+                                                              Callback<T> callback) {
+        return calculateAsync(oldList, newList, callback, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Compute the diff between two lists, in the background if they're large
+     * @param oldList Old items
+     * @param newList New items
+     * @param callback Item comparison
+     * @param executor Executor used for large lists
+     * @param <T> Item type
+     * @return Future result
+     */
+    public static <T> CompletableFuture<Result> calculateAsync(List<T> oldList, List<T> newList,
+                                                              Callback<T> callback, Executor executor) {
+        if (oldList.size() + newList.size() < ASYNC_THRESHOLD)
+            return CompletableFuture.completedFuture(calculate(oldList, newList, callback));
+        return CompletableFuture.supplyAsync(() -> calculate(oldList, newList, callback), executor)
+                .thenApplyAsync(result -> result, SwingUtilities::invokeLater);
+    }
+
+    /**
+     * Find the longest common subsequence of items which are the same (Myers' greedy algorithm)
+     * @return False if the edit distance is larger than {@link #MAX_EDIT_DISTANCE}
+     */
+    private static <T> boolean match(List<T> oldList, List<T> newList, Callback<T> callback,
+                                     int[] oldToNew, int[] newToOld) {
+        int n = oldList.size(), m = newList.size();
+        int max = Math.min(n + m, MAX_EDIT_DISTANCE);
+        int offset = n + m + 1;
+        int[] v = new int[2 * offset + 1];
+        List<int[]> trace = new ArrayList<>();
+
+        // Forward pass: furthest x reached on each diagonal k = x - y for each edit distance d
+        int end = -1;
+        for (int d = 0; d <= max && end == -1; d++) {
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (k == -d || k != d && v[offset + k - 1] < v[offset + k + 1])
+                    x = v[offset + k + 1];
+                else
+                    x = v[offset + k - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && callback.areItemsTheSame(oldList.get(x), newList.get(y))) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m) {
+                    end = d;
+                    break;
+                }
+            }
+            trace.add(Arrays.copyOfRange(v, offset - d, offset + d + 1));
+        }
+        if (end == -1)
+            return false;
+
+        // Walk back through the trace, recording the diagonal (matched) moves
+        int x = n, y = m;
+        for (int d = end; d > 0; d--) {
+            int[] prev = trace.get(d - 1);
+            int k = x - y;
+            boolean down = k == -d || k != d && prev[k - 1 + d - 1] < prev[k + 1 + d - 1];
+            int prevK = down ? k + 1 : k - 1;
+            int prevX = prev[prevK + d - 1];
+            int prevY = prevX - prevK;
+            int startX = down ? prevX : prevX + 1;
+            while (x > startX) {
+                x--;
+                y--;
+                oldToNew[x] = y;
+                newToOld[y] = x;
+            }
+            x = prevX;
+            y = prevY;
+        }
+        while (x > 0 && y > 0) {
+            x--;
+            y--;
+            oldToNew[x] = y;
+            newToOld[y] = x;
+        }
+        return true;
+    }
+
+    /**
+     * Updates between two lists
+     */
+    public static class Result {
+
+        private final int oldSize, newSize;
+        private final int[] oldToNew, newToOld;
+        private final boolean[] moved, changed;
+
+        // True if the lists were too different to diff
+        private final boolean replaced;
+
+        Result(int oldSize, int newSize) {
+            this.oldSize = oldSize;
+            this.newSize = newSize;
+            this.oldToNew = this.newToOld = null;
+            this.moved = this.changed = null;
+            this.replaced = true;
+        }
+
+        Result(int[] oldToNew, int[] newToOld, boolean[] moved, boolean[] changed) {
+            this.oldSize = oldToNew.length;
+            this.newSize = newToOld.length;
+            this.oldToNew = oldToNew;
+            this.newToOld = newToOld;
+            this.moved = moved;
+            this.changed = changed;
+            this.replaced = false;
+        }
+
+        /**
+         * Get the new position of an item in the old list
+         * @param oldPosition Position in the old list
+         * @return Position in the new list or -1 if removed (or unknown)
+         */
+        public int getNewPosition(int oldPosition) {
+            return replaced ? -1 : oldToNew[oldPosition];
+        }
+
+        /**
+         * Get the old position of an item in the new list
+         * @param newPosition Position in the new list
+         * @return Position in the old list or -1 if inserted (or unknown)
+         */
+        public int getOldPosition(int newPosition) {
+            return replaced ? -1 : newToOld[newPosition];
+        }
+
+        /**
+         * Send the updates to an adapter
+         * The adapter must already contain the new items.
+         * @param adapter List adapter
+         */
+        public void dispatchUpdatesTo(ListAdapter adapter) {
+            List<int[]> updates = replaced ? null : getUpdates();
+            if (updates == null) {
+                adapter.notifyDatasetChanged();
+                return;
+            }
+
+            ListView list = adapter.listView;
+            if (list != null)
+                list.beginUpdates();
+            try {
+                for (int[] u : updates) {
+                    switch (u[0]) {
+                        case REMOVE:
+                            adapter.notifyItemRangeRemoved(u[1], u[2]);
+                            break;
+                        case MOVE:
+                            adapter.notifyItemMoved(u[1], u[2]);
+                            break;
+                        case INSERT:
+                            adapter.notifyItemRangeInserted(u[1], u[2]);
+                            break;
+                        case CHANGE:
+                            adapter.notifyItemRangeChanged(u[1], u[2]);
+                            break;
+                    }
+                }
+            } finally {
+                if (list != null)
+                    list.endUpdates();
+            }
+        }
+
+        private static final int REMOVE = 0, MOVE = 1, INSERT = 2, CHANGE = 3;
+
+        /**
+         * Convert the item mapping into notifications
+         * Removals are sent from the end of the list first, then moves, then insertions
+         * and changes using the final positions.
+         * @return Updates as {type, position/from, count/to} or null if there are too many
+         */
+        private List<int[]> getUpdates() {
+            List<int[]> updates = new ArrayList<>();
+
+            // Removals
+            for (int i = oldSize - 1; i >= 0; i--) {
+                if (oldToNew[i] != -1)
+                    continue;
+                int end = i;
+                while (i > 0 && oldToNew[i - 1] == -1)
+                    i--;
+                updates.add(new int[] {REMOVE, i, end - i + 1});
+            }
+
+            // Moves: place each moved item after the item which precedes it in the new list
+            List<Integer> current = new ArrayList<>();
+            for (int i = 0; i < oldSize; i++) {
+                if (oldToNew[i] != -1)
+                    current.add(i);
+            }
+            int prev = -1;
+            for (int j = 0; j < newSize; j++) {
+                int i = newToOld[j];
+                if (i == -1)
+                    continue;
+                if (moved[j]) {
+                    int from = current.indexOf(i);
+                    int to = prev == -1 ? 0 : current.indexOf(prev) + 1;
+                    if (from != to) {
+                        current.remove(from);
+                        if (from < to)
+                            to--;
+                        current.add(to, i);
+                        updates.add(new int[] {MOVE, from, to});
+                        if (updates.size() > MAX_UPDATES)
+                            return null;
+                    }
+                }
+                prev = i;
+            }
+
+            // Insertions
+            for (int j = 0; j < newSize; j++) {
+                if (newToOld[j] != -1)
+                    continue;
+                int start = j;
+                while (j + 1 < newSize && newToOld[j + 1] == -1)
+                    j++;
+                updates.add(new int[] {INSERT, start, j - start + 1});
+            }
+            if (updates.size() > MAX_UPDATES)
+                return null;
+
+            // Changes
+            for (int j = 0; j < newSize; j++) {
+                if (!changed[j])
+                    continue;
+                int start = j;
+                while (j + 1 < newSize && changed[j + 1])
+                    j++;
+                updates.add(new int[] {CHANGE, start, j - start + 1});
+            }
+            return updates;
+        }
+    }
+}
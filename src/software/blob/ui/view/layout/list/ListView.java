@@ -8,17 +8,26 @@ import software.blob.ui.view.layout.LinearLayout;
 import software.blob.ui.view.layout.ScrollLayout;
 
 import javax.swing.*;
+import javax.swing.Timer;
 import java.awt.*;
 import java.awt.event.AdjustmentEvent;
 import java.awt.event.AdjustmentListener;
-import java.util.Arrays;
+import java.util.*;
+import java.util.List;
 
 /**
  * Performance-friendly list layout
+ * See {@link GridView} for items laid out in columns
  * TODO: Horizontal scrolling support (not needed at the moment)
  */
 public class ListView extends ScrollLayout implements AdjustmentListener {
 
+    // Client property holding the view type a row was bound with
+    private static final Object VIEW_TYPE_KEY = new Object();
+
+    public static final int DEFAULT_FRAME_RATE = 60;
+    public static final int DEFAULT_PREFETCH_COUNT = 2;
+
     private final ListContainer list;
     private final JScrollBar scrollbar;
 
@@ -26,13 +35,35 @@ public class ListView extends ScrollLayout implements AdjustmentListener {
     private int width, height;
     private int scrollValue;
     private int topPos, bottomPos;
-    private int rowHeight;
+    private int rangeFirst = -1, rangeLast = -1;
+    private int pendingScroll = -1;
+    private final RowHeightIndex heights = new RowHeightIndex();
+    private RecycledViewPool pool = new RecycledViewPool();
+
+    // Refresh requests are coalesced into at most one layout pass per frame
+    private final Timer frameTimer;
+    private final FrameStats frameStats = new FrameStats();
+    private long frameInterval = 1_000_000_000L / DEFAULT_FRAME_RATE;
+    private long lastFrame, frameDue;
+    private boolean refreshPending, rebindPending, inFrame, scrolling;
+
+    // Granular updates are batched while this is above zero (see ListDiff)
+    private int updateDepth;
+    private boolean updatePending;
+
+    // Rows bound ahead of the viewport in the scroll direction while idle
+    private int prefetchCount;
+    private int scrollDirection = 1;
+    private boolean prefetchPending;
 
     public ListView(AttributeSet attrs) {
         super(attrs);
         this.list = new ListContainer();
         this.scrollbar = getVerticalScrollBar();
         this.scrollbar.addAdjustmentListener(this);
+        this.frameTimer = new Timer(0, e -> onFrame());
+        this.frameTimer.setRepeats(false);
+        this.prefetchCount = attrs.getInteger("prefetch", DEFAULT_PREFETCH_COUNT);
         setHorizontalScrollBarPolicy(ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
         setViewportView(this.list);
     }
@@ -46,27 +77,99 @@ public class ListView extends ScrollLayout implements AdjustmentListener {
         this.adapter = adapter;
         if (adapter != null)
             adapter.setListView(this);
-        refresh();
+
+        // Heights measured for the previous adapter don't apply to this one
+        heights.clear();
+        heights.setEstimate(0);
+        onDatasetChanged();
+    }
+
+    /**
+     * Set the pool that rows scrolled off screen are put into
+     * @param pool Pool, which may be shared with other lists (null to use a new one)
+     */
+    public void setRecycledViewPool(RecycledViewPool pool) {
+        this.pool = pool != null ? pool : new RecycledViewPool();
+    }
+
+    public RecycledViewPool getRecycledViewPool() {
+        return this.pool;
+    }
+
+    /**
+     * Set the maximum number of layout passes per second
+     * @param fps Frames per second
+     */
+    public void setFrameRate(int fps) {
+        this.frameInterval = 1_000_000_000L / Math.max(1, fps);
+    }
+
+    /**
+     * Set the number of rows past the edge of the viewport which are bound ahead of time
+     * Rows are bound one at a time when the event queue is idle, in the direction of the last scroll.
+     * @param count Number of rows (0 to disable)
+     */
+    public void setPrefetchCount(int count) {
+        this.prefetchCount = Math.max(0, count);
+    }
+
+    public int getPrefetchCount() {
+        return this.prefetchCount;
+    }
+
+    /**
+     * Get frame timing while scrolling this list
+     * @return Frame stats
+     */
+    public FrameStats getFrameStats() {
+        return this.frameStats;
+    }
+
+    /**
+     * Get the position of the first row on screen
+     * @return Position index
+     */
+    public int getFirstVisiblePosition() {
+        return topPos;
+    }
+
+    /**
+     * Get the position of the last row on screen
+     * @return Position index
+     */
+    public int getLastVisiblePosition() {
+        return bottomPos;
     }
 
     /**
      * Scroll to a specific position in the list
      *
      * Conditions:
-     * - Row height must be greater than zero
      * - Position must be valid
      * - Scroll is only performed if the row isn't completely on screen
      *
+     * If no rows have been measured yet the scroll is performed after the next layout pass.
+     *
      * @param pos Position to scroll to
      */
     public void scrollToPosition(int pos) {
-        int count = adapter != null ? adapter.getCount() : 0;
-        if (rowHeight <= 0 || pos < 0 || pos >= count || pos > topPos && pos < bottomPos)
+        if (heights.getEstimate() <= 0) {
+            pendingScroll = pos;
             return;
-        if (pos <= topPos)
-            scrollbar.setValue(pos * rowHeight);
-        else
-            scrollbar.setValue((pos + 1) * rowHeight - getHeight());
+        }
+        scrollToRow(pos);
+    }
+
+    private void scrollToRow(int pos) {
+        int count = getItemCount();
+        if (heights.getEstimate() <= 0 || pos < 0 || pos >= count || pos > topPos && pos < bottomPos)
+            return;
+        if (pos <= topPos) {
+            // The target row is the one to keep in place once the rows after it are measured
+            topPos = pos;
+            scrollbar.setValue((int) heights.getOffset(pos));
+        } else
+            scrollbar.setValue((int) heights.getOffset(pos + 1) - getHeight());
     }
 
     /**
@@ -81,14 +184,244 @@ public class ListView extends ScrollLayout implements AdjustmentListener {
      *
      * Much like the ListView/RecyclerView in Android, this will create or update
      * rows depending on the visible portion of the list using a set {@link ListAdapter}.
+     * Every visible row is bound again; use the granular notify methods in
+     * {@link ListAdapter} when only some items have changed.
      *
-     * For implementations of {@link ListAdapter#getView(int, View, ListView)}
-     * it's recommended to keep the rows the same height, otherwise you will run
-     * into some graphical quirks when scrolling.
+     * Rows may have different heights. Rows which haven't been on screen yet are
+     * assumed to be the same height as the first row measured, and the scroll range
+     * is corrected as rows are measured.
+     *
+     * The refresh runs immediately unless one already ran during the current frame,
+     * in which case it's combined with any other requests until the next frame.
      */
     public void refresh() {
-        if (isVisible())
-            list.refresh();
+        scheduleRefresh(true, true);
+    }
+
+    /**
+     * Update the visible rows after scrolling or resizing
+     * Rows which are still on screen are kept without being bound again.
+     */
+    private void layoutRows() {
+        scheduleRefresh(false, true);
+    }
+
+    /**
+     * Request a layout pass
+     * @param rebind True to bind every visible row again
+     * @param immediate True to run the pass now if one hasn't run during this frame
+     */
+    private void scheduleRefresh(boolean rebind, boolean immediate) {
+        rebindPending |= rebind;
+        if (refreshPending)
+            return;
+        refreshPending = true;
+        long now = System.nanoTime();
+        frameDue = Math.max(now, lastFrame + frameInterval);
+        if (immediate && frameDue == now && !inFrame)
+            onFrame();
+        else {
+            frameTimer.setInitialDelay((int) ((frameDue - now) / 1_000_000));
+            frameTimer.restart();
+        }
+    }
+
+    private void onFrame() {
+        if (!refreshPending)
+            return;
+        boolean rebind = rebindPending;
+        refreshPending = rebindPending = false;
+        long start = lastFrame = System.nanoTime();
+        inFrame = true;
+        try {
+            if (isVisible())
+                list.refresh(rebind);
+        } finally {
+            inFrame = false;
+        }
+        if (scrolling) {
+            scrolling = false;
+            frameStats.onFrame(frameDue, start, System.nanoTime(), frameInterval);
+        }
+        schedulePrefetch();
+    }
+
+    private void schedulePrefetch() {
+        if (prefetchCount > 0 && !prefetchPending) {
+            prefetchPending = true;
+            SwingUtilities.invokeLater(this::prefetchNext);
+        }
+    }
+
+    /**
+     * Bind the next row in the prefetch window
+     * Only one row is bound per event so input and paint events aren't held up.
+     */
+    private void prefetchNext() {
+        prefetchPending = false;
+        if (refreshPending || !isVisible() || adapter == null)
+            return;
+        if (list.prefetch(scrollDirection, prefetchCount))
+            schedulePrefetch();
+    }
+
+    private int getItemCount() {
+        return adapter != null ? adapter.getCount() : 0;
+    }
+
+    private int getItemViewType(int pos) {
+        int type = adapter.getItemViewType(pos);
+        if (type < 0 || type >= adapter.getViewTypeCount())
+            Log.w("Invalid view type " + type + " at position " + pos);
+        return type;
+    }
+
+    private static int getViewType(Component c) {
+        Object type = c instanceof View ? ((View) c).getClientProperty(VIEW_TYPE_KEY) : null;
+        return type instanceof Integer ? (Integer) type : -1;
+    }
+
+    /**
+     * Discard measured row heights and refresh
+     * Called when the adapter data has changed
+     */
+    void onDatasetChanged() {
+        list.dropPrefetched(0, Integer.MAX_VALUE);
+        heights.clear();
+        rangeFirst = rangeLast = -1;
+        refresh();
+    }
+
+    /**
+     * Set the height assumed for rows that haven't been measured yet
+     * @param height Row height (0 to use the height of the first row)
+     */
+    void setRowHeightEstimate(int height) {
+        heights.setEstimate(Math.max(0, height));
+    }
+
+    /**
+     * Bind the visible rows in a range again
+     * @param start First position
+     * @param count Number of items
+     * @param payload Optional payload passed to the adapter (null for a full bind)
+     */
+    void onItemRangeChanged(int start, int count, Object payload) {
+        list.dropPrefetched(start, start + count);
+        if (isVisible() && list.rebind(start, count, payload))
+            requestLayout();
+    }
+
+    /**
+     * Start a batch of granular updates
+     * Layout is deferred until the batch ends, and the adapter may already contain
+     * the final items while the updates are applied.
+     */
+    void beginUpdates() {
+        updateDepth++;
+    }
+
+    /**
+     * End a batch of granular updates
+     */
+    void endUpdates() {
+        if (updateDepth > 0 && --updateDepth == 0) {
+            if (heights.getCount() != getItemCount())
+                onDatasetChanged();
+            else if (updatePending)
+                layoutRows();
+            updatePending = false;
+        }
+    }
+
+    private void requestLayout() {
+        if (updateDepth > 0)
+            updatePending = true;
+        else
+            layoutRows();
+    }
+
+    /**
+     * Shift the rows after a range of inserted items
+     * @param start First position
+     * @param count Number of items
+     */
+    void onItemRangeInserted(int start, int count) {
+        int oldCount = heights.getCount();
+        if (start < 0 || start > oldCount || updateDepth == 0 && oldCount + count != getItemCount()) {
+            onDatasetChanged();
+            return;
+        }
+        int anchor = topPos;
+        long offset = heights.getOffset(anchor);
+        heights.insert(start, count);
+        list.shiftPositions(start, Integer.MAX_VALUE, count);
+        if (anchor >= start)
+            anchor += count;
+        onRowsShifted(anchor, offset);
+    }
+
+    /**
+     * Drop the rows for a range of removed items and shift the rows after it
+     * @param start First position
+     * @param count Number of items
+     */
+    void onItemRangeRemoved(int start, int count) {
+        int oldCount = heights.getCount();
+        if (start < 0 || start + count > oldCount || updateDepth == 0 && oldCount - count != getItemCount()) {
+            onDatasetChanged();
+            return;
+        }
+        int anchor = topPos;
+        long offset = heights.getOffset(anchor);
+        heights.remove(start, count);
+        list.unbindPositions(start, start + count);
+        list.shiftPositions(start + count, Integer.MAX_VALUE, -count);
+        if (anchor >= start + count)
+            anchor -= count;
+        else if (anchor >= start)
+            anchor = start;
+        onRowsShifted(anchor, offset);
+    }
+
+    /**
+     * Move the row for an item and shift the rows in between
+     * @param from Previous position
+     * @param to New position
+     */
+    void onItemMoved(int from, int to) {
+        int count = heights.getCount();
+        if (from < 0 || to < 0 || from >= count || to >= count || updateDepth == 0 && count != getItemCount()) {
+            onDatasetChanged();
+            return;
+        }
+        if (from == to)
+            return;
+        int anchor = topPos;
+        long offset = heights.getOffset(anchor);
+        heights.move(from, to);
+        list.movePosition(from, to);
+        if (anchor == from)
+            anchor = to;
+        else if (from < anchor && anchor <= to)
+            anchor--;
+        else if (to <= anchor && anchor < from)
+            anchor++;
+        onRowsShifted(anchor, offset);
+    }
+
+    /**
+     * Keep the first visible row in place after rows above it were added, removed or moved
+     * The list stays at the top if it isn't scrolled.
+     * @param anchor New position of the previously first visible row
+     * @param offset Previous offset of that row
+     */
+    private void onRowsShifted(int anchor, long offset) {
+        list.dropPrefetched(0, Integer.MAX_VALUE);
+        if (scrollbar.getValue() > 0 && anchor < heights.getCount())
+            list.scrollDelta += (int) (heights.getOffset(anchor) - offset);
+        topPos = Math.min(anchor, Math.max(0, heights.getCount() - 1));
+        requestLayout();
     }
 
     @Override
@@ -116,7 +449,7 @@ public class ListView extends ScrollLayout implements AdjustmentListener {
         if (width != this.width || height != this.height) {
             this.width = width;
             this.height = height;
-            SwingUtilities.invokeLater(this::refresh);
+            scheduleRefresh(false, false);
         }
     }
 
@@ -124,8 +457,10 @@ public class ListView extends ScrollLayout implements AdjustmentListener {
     public void adjustmentValueChanged(AdjustmentEvent e) {
         int scroll = e.getValue();
         if (scroll != scrollValue) {
+            scrollDirection = scroll > scrollValue ? 1 : -1;
             scrollValue = scroll;
-            refresh();
+            scrolling = true;
+            layoutRows();
         }
     }
 
@@ -133,6 +468,15 @@ public class ListView extends ScrollLayout implements AdjustmentListener {
 
         private final View topPad, bottomPad;
 
+        // Adapter position bound to each row component (-1 if it needs to be bound again)
+        private int[] rowPositions = new int[0];
+
+        // Pending scroll adjustment so visible rows stay in place after items above them change
+        private int scrollDelta;
+
+        // Detached rows bound ahead of time, by position
+        private final TreeMap<Integer, View> prefetched = new TreeMap<>();
+
         ListContainer() {
             super(new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT), VERTICAL);
             this.topPad = new View();
@@ -147,12 +491,123 @@ public class ListView extends ScrollLayout implements AdjustmentListener {
             return Arrays.copyOfRange(getComponents(), 1, getComponentCount() - 1);
         }
 
-        private void refresh() {
+        /**
+         * Bind visible rows in a range again, in place
+         * @return True if a layout pass is needed because a row changed height or was replaced
+         */
+        private boolean rebind(int start, int count, Object payload) {
+            if (rowPositions.length != getComponentCount() - 2) {
+                rowPositions = new int[0];
+                return true;
+            }
+            List<Object> payloads = payload != null ? Collections.singletonList(payload) : Collections.emptyList();
+            boolean relayout = false;
+            for (int i = 0; i < rowPositions.length; i++) {
+                int pos = rowPositions[i];
+                if (pos < start || pos >= start + count)
+                    continue;
+                View row = (View) getComponent(i + 1);
+                if (getViewType(row) != getItemViewType(pos)) {
+                    rowPositions[i] = -1;
+                    relayout = true;
+                    continue;
+                }
+                int height = row.getHeight();
+                View v = adapter.getView(pos, row, ListView.this, payloads);
+                if (v != row) {
+                    rowPositions[i] = -1;
+                    relayout = true;
+                } else if (v.getHeight() != height)
+                    relayout = true;
+            }
+            return relayout;
+        }
+
+        /**
+         * Bind the next row past the edge of the viewport which isn't bound yet
+         * @param direction 1 for rows below the viewport, -1 for rows above
+         * @param count Size of the prefetch window
+         * @return True if there may be more rows to bind
+         */
+        private boolean prefetch(int direction, int count) {
+            int itemCount = getItemCount();
+            for (int i = 1; i <= count; i++) {
+                int pos = direction > 0 ? bottomPos + i : topPos - i;
+                if (pos < 0 || pos >= itemCount)
+                    return false;
+                if (prefetched.containsKey(pos))
+                    continue;
+
+                int type = getItemViewType(pos);
+                View existing = pool.getRecycledView(type);
+                View v = adapter.getView(pos, existing, ListView.this);
+                if (existing != null && v != existing)
+                    pool.putRecycledView(type, existing);
+                if (v == null)
+                    return false;
+                v.putClientProperty(VIEW_TYPE_KEY, type);
+
+                // Rows above the viewport are measured once they're visible so the visible rows don't move
+                if (direction > 0)
+                    heights.setHeight(pos, Math.max(0, v.getHeight()));
+                prefetched.put(pos, v);
+                return i < count;
+            }
+            return false;
+        }
+
+        /**
+         * Put prefetched rows in a range of positions back into the pool
+         */
+        private void dropPrefetched(int start, int end) {
+            Iterator<Map.Entry<Integer, View>> it = prefetched.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Integer, View> e = it.next();
+                if (e.getKey() >= start && e.getKey() < end) {
+                    pool.putRecycledView(getViewType(e.getValue()), e.getValue());
+                    it.remove();
+                }
+            }
+        }
+
+        private void shiftPositions(int start, int end, int by) {
+            for (int i = 0; i < rowPositions.length; i++) {
+                if (rowPositions[i] >= start && rowPositions[i] < end)
+                    rowPositions[i] += by;
+            }
+        }
+
+        private void unbindPositions(int start, int end) {
+            for (int i = 0; i < rowPositions.length; i++) {
+                if (rowPositions[i] >= start && rowPositions[i] < end)
+                    rowPositions[i] = -1;
+            }
+        }
+
+        private void movePosition(int from, int to) {
+            for (int i = 0; i < rowPositions.length; i++) {
+                int pos = rowPositions[i];
+                if (pos == from)
+                    rowPositions[i] = to;
+                else if (from < pos && pos <= to)
+                    rowPositions[i]--;
+                else if (to <= pos && pos < from)
+                    rowPositions[i]++;
+            }
+        }
+
+        /**
+         * Lay out the rows in the visible portion of the list
+         * @param rebind True to bind every visible row again, false to keep rows which
+         *               are already bound to a visible position
+         */
+        private void refresh(boolean rebind) {
             setBulkOperation(true);
 
             Rectangle vp = getVisibleRect();
             Container parent = getParent();
             int scrollHeight = parent != null ? parent.getHeight() : 0;
+            int y = Math.max(0, vp.y + scrollDelta);
 
             // Add the top/bottom padding if needed
             int topPadding = 0;
@@ -163,96 +618,231 @@ public class ListView extends ScrollLayout implements AdjustmentListener {
                 add(bottomPad, getComponentCount());
 
             // Get all row components (excludes top and bottom padding)
+            // Rows still bound to a position are reused as-is, the rest are free to bind by view type
             Component[] components = getRowComponents();
+            boolean tracked = !rebind && rowPositions.length == components.length;
+            TreeMap<Integer, View> bound = new TreeMap<>();
+            Map<Integer, Deque<View>> free = new HashMap<>();
+            for (int i = 0; i < components.length; i++) {
+                if (!(components[i] instanceof View))
+                    continue;
+                View row = (View) components[i];
+                if (tracked && rowPositions[i] >= 0)
+                    bound.put(rowPositions[i], row);
+                else
+                    addFree(free, row);
+            }
+            for (Map.Entry<Integer, View> e : prefetched.entrySet()) {
+                if (!rebind && !bound.containsKey(e.getKey()))
+                    bound.put(e.getKey(), e.getValue());
+                else
+                    addFree(free, e.getValue());
+            }
+            prefetched.clear();
 
-            int cIdx = 1; // Component index
-            int itemCount = adapter != null ? adapter.getCount() : 0;
+            List<Component> rows = new ArrayList<>(components.length);
+            int[] positions = new int[components.length + 8];
+            int itemCount = getItemCount();
+            heights.setCount(itemCount);
+            int anchor = topPos;
             topPos = -1;
             bottomPos = 0;
-            rowHeight = 0;
             if (itemCount > 0 && scrollHeight > 0) {
-                int visibleHeight = 0;
-                int eIdx = 0; // Existing component index
-                for (int pos = 0; pos < itemCount; pos++) {
-
-                    // Get existing component using existing index
-                    Component c = eIdx < components.length ? components[eIdx] : null;
-
-                    // Create or update the existing view
-                    View existing = c instanceof View ? (View) c : null;
-                    View v = adapter.getView(pos, existing, ListView.this);
-
-                    // Skip row if the view is invalid or has no height
-                    int height = v != null ? v.getHeight() : 0;
-                    if (height <= 0) {
-                        itemCount--;
-                        continue;
-                    }
-
-                    // Check if we need to remove or skip rows
-                    if (pos == 0) {
 
-                        // Use the height of the first row for upcoming calculations
-                        rowHeight = height;
-
-                        // Check if the first row is completely outside the viewport
-                        if (vp.y >= height) {
+                // Use the height of the first row as the estimate for rows which haven't been measured
+                View first = null;
+                if (heights.getEstimate() <= 0) {
+                    first = bindRow(0, bound, free);
+                    int height = first != null ? first.getHeight() : 0;
+                    if (height > 0)
+                        heights.setEstimate(height);
+                    heights.setHeight(0, Math.max(0, height));
+                }
 
-                            // Calculate how many rows we need to skip ahead
-                            int skip = vp.y / height;
-                            pos += Math.max(0, skip - 1);
+                // Keep the previous first visible row in place while the rows above it are measured
+                // Otherwise scrolling up shifts everything below by the difference from the estimate
+                boolean compensate = y > 0;
+                for (;;) {
+
+                    // Skip ahead to the first visible row
+                    int start = heights.getEstimate() > 0 ? heights.getPosition(y) : 0;
+                    topPadding = (int) heights.getOffset(start);
+                    if (first != null && start > 0) {
+                        addFree(free, first);
+                        first = null;
+                    }
 
-                            // Calculate new top padding and continue
-                            topPadding = skip * rowHeight;
+                    // Corrections above the anchor apply once it is reached, not when jumping past it
+                    long bottom = topPadding, shift = 0;
+                    for (int pos = start; pos < itemCount; pos++) {
+
+                        // Reuse the row bound to this position or bind a free one
+                        View v = pos == 0 && first != null ? first : bindRow(pos, bound, free);
+
+                        // Skip row if the view is invalid or has no height
+                        int height = v != null ? v.getHeight() : 0;
+                        int oldHeight = heights.getHeight(pos);
+                        heights.setHeight(pos, Math.max(0, height));
+                        if (compensate && pos < anchor)
+                            shift += Math.max(0, height) - oldHeight;
+                        else if (shift != 0) {
+                            y = (int) Math.max(0, y + shift);
+                            shift = 0;
+                        }
+                        if (height <= 0) {
+                            if (v != null)
+                                addFree(free, v);
                             continue;
                         }
-                    }
-
-                    // Remember the first visible row
-                    if (topPos == -1)
-                        topPos = pos;
 
-                    // Add new view if needed (and remove incompatible row first)
-                    if (existing == null) {
-                        if (c != null)
-                            remove(cIdx);
-                        add(v, cIdx);
+                        // Remember the first visible row
+                        if (topPos == -1)
+                            topPos = pos;
+
+                        // Position tracking
+                        if (rows.size() == positions.length)
+                            positions = Arrays.copyOf(positions, positions.length * 2);
+                        positions[rows.size()] = pos;
+                        rows.add(v);
+                        bottomPos = pos;
+
+                        // Stop loop if the rows reach the bottom of the available parent height
+                        bottom += height;
+                        if (bottom > y + scrollHeight)
+                            break;
                     }
 
-                    // Track visible height so we know when to stop
-                    if (vp.y > topPadding && eIdx == 0)
-                        height -= vp.y - topPadding;
-                    visibleHeight += height;
-
-                    // Position tracking
-                    bottomPos = pos;
-                    cIdx++;
-                    eIdx++;
-
-                    // Stop loop if the visible portion of the list exceeds the available parent height
-                    if (visibleHeight > scrollHeight)
+                    // Rows above the anchor came out shorter than estimated, so the viewport now
+                    // starts above the first row - lay out again from there, keeping the rows bound
+                    if (y >= topPadding || start == 0)
                         break;
+                    for (int i = 0; i < rows.size(); i++)
+                        bound.put(positions[i], (View) rows.get(i));
+                    rows.clear();
+                    topPos = -1;
+                    bottomPos = 0;
                 }
 
                 // Calculate bottom padding
-                bottomPadding = Math.max(0, (itemCount - (bottomPos + 1)) * rowHeight);
+                bottomPadding = (int) Math.max(0, heights.getTotalHeight() - heights.getOffset(bottomPos + 1));
             }
 
             if (topPos == -1)
                 topPos = 0;
 
+            // Let the adapter know which items are on screen (i.e. to load them)
+            if (itemCount > 0 && (topPos != rangeFirst || bottomPos != rangeLast)) {
+                rangeFirst = topPos;
+                rangeLast = bottomPos;
+                adapter.onVisibleRangeChanged(topPos, bottomPos);
+            }
+
             // Update padding placeholders
             topPad.setPreferredSize(new Dimension(0, topPadding));
             bottomPad.setPreferredSize(new Dimension(0, bottomPadding));
 
-            // Remove extra views
-            //Log.d("Component count = " + getComponentCount());
-            for (int i = getComponentCount() - 2; i >= cIdx; i--)
+            // Put the rows in order, only moving those which aren't already in place
+            for (int i = 0; i < rows.size(); i++) {
+                Component row = rows.get(i);
+                if (i + 1 < getComponentCount() - 1 && getComponent(i + 1) == row)
+                    continue;
+                if (row.getParent() == this)
+                    remove(row);
+                add(row, i + 1);
+            }
+
+            // Remove extra views and put the unused rows into the pool
+            for (int i = getComponentCount() - 2; i > rows.size(); i--)
                 remove(i);
+            for (Map.Entry<Integer, View> e : bound.entrySet()) {
+                View row = e.getValue();
+                int pos = e.getKey();
+                if (prefetchCount > 0 && (scrollDirection > 0 ? pos > bottomPos && pos <= bottomPos + prefetchCount
+                        : pos < topPos && pos >= topPos - prefetchCount))
+                    prefetched.put(pos, row);
+                else
+                    pool.putRecycledView(getViewType(row), row);
+            }
+            for (Deque<View> views : free.values()) {
+                for (View row : views) {
+                    if (row.getParent() != this)
+                        pool.putRecycledView(getViewType(row), row);
+                }
+            }
+            rowPositions = Arrays.copyOf(positions, rows.size());
 
             // Update layout
             setBulkOperation(false);
             revalidate();
+
+            // Scroll so the visible rows stay in place
+            if (scrollDelta != 0 || y != vp.y) {
+                scrollDelta = 0;
+                ListView.this.validate();
+                scrollValue = y;
+                scrollbar.setValue(y);
+            }
+
+            // Scroll requested before any rows were measured
+            if (pendingScroll != -1 && heights.getEstimate() > 0) {
+                int pos = pendingScroll;
+                pendingScroll = -1;
+                ListView.this.validate();
+                scrollToRow(pos);
+            }
+        }
+
+        /**
+         * Get the row for a position, only binding it if it isn't already
+         * @param pos Adapter position
+         * @param bound Rows which are still bound to their position
+         * @param free Rows which can be bound to any position
+         * @return Row view
+         */
+        private View bindRow(int pos, TreeMap<Integer, View> bound, Map<Integer, Deque<View>> free) {
+            int type = getItemViewType(pos);
+            View row = bound.remove(pos);
+            if (row != null) {
+                if (getViewType(row) == type)
+                    return row;
+                addFree(free, row);
+            }
+
+            // Prefer unbound rows, then pooled rows, then rows above this position
+            // (which won't be reached again), then the row furthest below
+            Deque<View> views = free.get(type);
+            View existing = views != null ? views.pollFirst() : null;
+            if (existing == null)
+                existing = pool.getRecycledView(type);
+            if (existing == null)
+                existing = takeBound(bound, pos, type);
+
+            View v = adapter.getView(pos, existing, ListView.this);
+            if (v != null)
+                v.putClientProperty(VIEW_TYPE_KEY, type);
+            if (existing != null && v != existing)
+                addFree(free, existing);
+            return v;
+        }
+
+        private View takeBound(TreeMap<Integer, View> bound, int pos, int type) {
+            for (Map.Entry<Integer, View> e : bound.headMap(pos).entrySet()) {
+                if (getViewType(e.getValue()) == type)
+                    return bound.remove(e.getKey());
+            }
+            for (Map.Entry<Integer, View> e : bound.descendingMap().entrySet()) {
+                if (getViewType(e.getValue()) == type)
+                    return bound.remove(e.getKey());
+            }
+            return null;
+        }
+
+        private void addFree(Map<Integer, Deque<View>> free, View row) {
+            int type = getViewType(row);
+            Deque<View> views = free.get(type);
+            if (views == null)
+                free.put(type, views = new ArrayDeque<>());
+            views.add(row);
         }
     }
 }
@@ -0,0 +1,273 @@
+package software.blob.ui.view.layout.list;
+
+import software.blob.ui.util.Log;
+import software.blob.ui.view.View;
+
+import javax.swing.*;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * List adapter for items which are loaded a page at a time from a {@link DataSource}
+ *
+ * Pages are loaded on a background executor as they come into view, and at most
+ * a fixed number of pages are kept in memory. Rows whose page hasn't loaded yet are
+ * bound with a null item so a placeholder can be shown.
+ * @param <T> Item type
+ */
+public abstract class PagedListAdapter<T> extends ListAdapter {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int DEFAULT_MAX_PAGES = 10;
+
+    // Executor shared by adapters which don't set their own (created on first use)
+    private static volatile Executor defaultExecutor;
+
+    private final DataSource<T> source;
+    private final int pageSize, maxPages;
+    private Executor executor;
+
+    // Loaded pages and pages being loaded, by page index
+    private final Map<Integer, List<T>> pages = new HashMap<>();
+    private final Map<Integer, Future<List<T>>> loading = new HashMap<>();
+    private Future<Integer> countTask;
+    private int count;
+
+    // Incremented when the data is reloaded so results from before are ignored
+    private int generation;
+    private int firstVisible, lastVisible = -1;
+
+    public PagedListAdapter(DataSource<T> source) {
+        this(source, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES);
+    }
+
+    /**
+     * @param source Data source
+     * @param pageSize Number of items per page
+     * @param maxPages Maximum number of pages kept in memory
+     *                 (raised while more pages are needed to cover the visible rows plus a page on either side)
+     */
+    public PagedListAdapter(DataSource<T> source, int pageSize, int maxPages) {
+        this.source = source;
+        this.pageSize = Math.max(1, pageSize);
+        this.maxPages = Math.max(3, maxPages);
+    }
+
+    /**
+     * Set the executor used to load pages
+     * @param executor Executor or null to use the default background threads
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Get/create the view for an item
+     * @param position Position index
+     * @param item Item or null if its page hasn't loaded yet
+     * @param existing Existing view of the same view type (null if it needs to be created)
+     * @param list List that is requesting this view
+     * @return New or updated view
+     */
+    public abstract View getView(int position, T item, View existing, ListView list);
+
+    @Override
+    public View getView(int position, View existing, ListView list) {
+        return getView(position, getItem(position), existing, list);
+    }
+
+    /**
+     * Get the number of items
+     * This is zero until the count has been loaded from the data source.
+     * @return Number of items
+     */
+    @Override
+    public int getCount() {
+        if (countTask == null)
+            loadCount();
+        return this.count;
+    }
+
+    /**
+     * Get a loaded item
+     * @param position Position index
+     * @return Item or null if its page isn't loaded
+     */
+    @Override
+    public T getItem(int position) {
+        List<T> page = pages.get(position / pageSize);
+        int idx = position % pageSize;
+        return page != null && idx < page.size() ? page.get(idx) : null;
+    }
+
+    /**
+     * Check if the page containing an item is loaded
+     * @param position Position index
+     * @return True if loaded
+     */
+    public boolean isLoaded(int position) {
+        return pages.containsKey(position / pageSize);
+    }
+
+    /**
+     * Discard all pages and load the data again
+     */
+    public void reload() {
+        generation++;
+        for (Future<List<T>> f : loading.values())
+            f.cancel(true);
+        loading.clear();
+        pages.clear();
+        if (countTask != null)
+            countTask.cancel(true);
+        loadCount();
+    }
+
+    @Override
+    public void onVisibleRangeChanged(int first, int last) {
+        this.firstVisible = first;
+        this.lastVisible = last;
+        loadVisiblePages();
+    }
+
+    /**
+     * Load the pages around the visible rows and cancel those which are no longer needed
+     */
+    private void loadVisiblePages() {
+        if (count == 0 || lastVisible < firstVisible)
+            return;
+
+        // Visible pages plus one on either side
+        int lastPage = (count - 1) / pageSize;
+        int first = Math.max(0, firstVisible / pageSize - 1);
+        int last = Math.min(lastPage, lastVisible / pageSize + 1);
+
+        // Cancel loads which have scrolled out of range
+        Iterator<Map.Entry<Integer, Future<List<T>>>> it = loading.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, Future<List<T>>> e = it.next();
+            if (e.getKey() < first || e.getKey() > last) {
+                e.getValue().cancel(true);
+                it.remove();
+            }
+        }
+
+        // Load the visible pages before the ones on either side
+        for (int page = firstVisible / pageSize; page <= Math.min(lastPage, lastVisible / pageSize); page++)
+            loadPage(page);
+        loadPage(last);
+        loadPage(first);
+    }
+
+    private void loadPage(int page) {
+        if (pages.containsKey(page) || loading.containsKey(page))
+            return;
+
+        int gen = generation;
+        int start = page * pageSize;
+        int size = Math.min(pageSize, count - start);
+        FutureTask<List<T>> task = new FutureTask<List<T>>(() -> source.loadPage(start, size)) {
+            @Override
+            protected void done() {
+                if (!isCancelled())
+                    SwingUtilities.invokeLater(() -> onPageLoaded(gen, page, this));
+            }
+        };
+        loading.put(page, task);
+        getExecutor().execute(task);
+    }
+
+    private void onPageLoaded(int gen, int page, Future<List<T>> task) {
+        if (gen != generation || loading.get(page) != task)
+            return;
+        loading.remove(page);
+
+        List<T> items;
+        try {
+            items = task.get();
+        } catch (Exception e) {
+            Log.e("Failed to load page " + page, e);
+            return;
+        }
+        if (items == null)
+            return;
+
+        pages.put(page, items);
+        evictPages();
+        notifyItemRangeChanged(page * pageSize, items.size());
+    }
+
+    /**
+     * Drop the pages furthest from the visible rows until the limit is met
+     * Pages around the visible rows are always kept, even if there are more of them than the limit.
+     */
+    private void evictPages() {
+        int first = Math.max(0, firstVisible / pageSize - 1);
+        int last = lastVisible / pageSize + 1;
+        int limit = Math.max(maxPages, last - first + 1);
+        int center = (firstVisible + lastVisible) / 2 / pageSize;
+        while (pages.size() > limit) {
+            int furthest = -1;
+            for (int page : pages.keySet()) {
+                if (page >= first && page <= last)
+                    continue;
+                if (furthest == -1 || Math.abs(page - center) > Math.abs(furthest - center))
+                    furthest = page;
+            }
+            if (furthest == -1)
+                break;
+            pages.remove(furthest);
+        }
+    }
+
+    private void loadCount() {
+        int gen = generation;
+        FutureTask<Integer> task = new FutureTask<Integer>(source::getCount) {
+            @Override
+            protected void done() {
+                if (!isCancelled())
+                    SwingUtilities.invokeLater(() -> onCountLoaded(gen, this));
+            }
+        };
+        countTask = task;
+        getExecutor().execute(task);
+    }
+
+    private void onCountLoaded(int gen, Future<Integer> task) {
+        if (gen != generation || countTask != task)
+            return;
+        try {
+            this.count = Math.max(0, task.get());
+        } catch (Exception e) {
+            Log.e("Failed to load item count", e);
+            this.count = 0;
+        }
+        notifyDatasetChanged();
+        loadVisiblePages();
+    }
+
+    private Executor getExecutor() {
+        if (executor != null)
+            return executor;
+        Executor exec = defaultExecutor;
+        if (exec == null) {
+            synchronized (PagedListAdapter.class) {
+                if (defaultExecutor == null)
+                    defaultExecutor = createDefaultExecutor();
+                exec = defaultExecutor;
+            }
+        }
+        return exec;
+    }
+
+    private static ExecutorService createDefaultExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(2, r -> {
+            Thread t = new Thread(r, "PagedListAdapter-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
@@ -0,0 +1,85 @@
+package software.blob.ui.view.layout.list;
+
+import software.blob.ui.view.View;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rows which have scrolled off screen, grouped by view type
+ *
+ * Each {@link ListView} has its own pool by default. Lists with the same kinds of
+ * rows can share one with {@link ListView#setRecycledViewPool(RecycledViewPool)}.
+ * Only used on the event dispatch thread.
+ */
+public class RecycledViewPool {
+
+    // Default number of views kept per type
+    public static final int DEFAULT_MAX_VIEWS = 5;
+
+    private final Map<Integer, Scrap> scrap = new HashMap<>();
+
+    private static class Scrap {
+        final ArrayDeque<View> views = new ArrayDeque<>();
+        int max = DEFAULT_MAX_VIEWS;
+    }
+
+    /**
+     * Set the maximum number of views kept for a view type
+     * @param viewType View type (see {@link ListAdapter#getItemViewType(int)})
+     * @param max Maximum number of views
+     */
+    public void setMaxRecycledViews(int viewType, int max) {
+        Scrap s = getScrap(viewType);
+        s.max = max;
+        while (s.views.size() > max)
+            s.views.pollLast();
+    }
+
+    /**
+     * Take a recycled view out of the pool
+     * @param viewType View type
+     * @return View or null if none are available
+     */
+    public View getRecycledView(int viewType) {
+        Scrap s = scrap.get(viewType);
+        return s != null ? s.views.pollFirst() : null;
+    }
+
+    /**
+     * Put a view into the pool
+     * The view is dropped if the pool for its type is full.
+     * @param viewType View type
+     * @param view View (must not be attached to a parent)
+     */
+    public void putRecycledView(int viewType, View view) {
+        Scrap s = getScrap(viewType);
+        if (s.views.size() < s.max && !s.views.contains(view))
+            s.views.addFirst(view);
+    }
+
+    /**
+     * Get the number of views in the pool for a view type
+     * @param viewType View type
+     * @return Number of views
+     */
+    public int getRecycledViewCount(int viewType) {
+        Scrap s = scrap.get(viewType);
+        return s != null ? s.views.size() : 0;
+    }
+
+    /**
+     * Drop all pooled views
+     */
+    public void clear() {
+        scrap.clear();
+    }
+
+    private Scrap getScrap(int viewType) {
+        Scrap s = scrap.get(viewType);
+        if (s == null)
+            scrap.put(viewType, s = new Scrap());
+        return s;
+    }
+}
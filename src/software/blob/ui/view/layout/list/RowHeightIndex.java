@@ -0,0 +1,219 @@
+package software.blob.ui.view.layout.list;
+
+import java.util.BitSet;
+
+/**
+ * Row offsets for lists with variable-height rows
+ *
+ * Rows that haven't been measured yet are assumed to have the estimated height. Measured rows
+ * are stored as their difference from the estimate in a Fenwick tree, so converting between
+ * positions and offsets is O(log n) regardless of how many rows have been measured.
+ */
+public class RowHeightIndex {
+
+    // 1-based Fenwick tree of (measured height - estimate)
+    private long[] tree = new long[1];
+    private final BitSet measured = new BitSet();
+    private int count, estimate;
+
+    /**
+     * Set the number of rows
+     * All measurements are discarded if the count changes
+     * @param count Row count
+     */
+    public void setCount(int count) {
+        if (count != this.count) {
+            this.count = count;
+            clear();
+        }
+    }
+
+    public int getCount() {
+        return this.count;
+    }
+
+    /**
+     * Discard all measurements, keeping the estimate
+     */
+    public void clear() {
+        this.tree = new long[this.count + 1];
+        this.measured.clear();
+    }
+
+    /**
+     * Set the height assumed for rows that haven't been measured
+     * @param estimate Estimated row height
+     */
+    public void setEstimate(int estimate) {
+        if (estimate == this.estimate)
+            return;
+
+        // Measured rows keep their height, so their differences change
+        long[] deltas = toArray();
+        long shift = estimate - this.estimate;
+        for (int i = measured.nextSetBit(0); i >= 0; i = measured.nextSetBit(i + 1))
+            deltas[i + 1] -= shift;
+        this.estimate = estimate;
+        fromArray(deltas);
+    }
+
+    public int getEstimate() {
+        return this.estimate;
+    }
+
+    public boolean isMeasured(int pos) {
+        return measured.get(pos);
+    }
+
+    /**
+     * Get the height of a row
+     * @param pos Row position
+     * @return Measured or estimated height
+     */
+    public int getHeight(int pos) {
+        return (int) (estimate + sum(pos + 1) - sum(pos));
+    }
+
+    /**
+     * Set the measured height of a row
+     * @param pos Row position
+     * @param height Measured height
+     * @return True if the height changed
+     */
+    public boolean setHeight(int pos, int height) {
+        long delta = height - getHeight(pos);
+        measured.set(pos);
+        if (delta == 0)
+            return false;
+        for (int i = pos + 1; i <= count; i += i & -i)
+            tree[i] += delta;
+        return true;
+    }
+
+    /**
+     * Get the offset of the top of a row
+     * @param pos Row position (may equal the count to get the total height)
+     * @return Offset in pixels
+     */
+    public long getOffset(int pos) {
+        return (long) pos * estimate + sum(pos);
+    }
+
+    public long getTotalHeight() {
+        return getOffset(count);
+    }
+
+    /**
+     * Get the row at an offset
+     * @param offset Offset in pixels
+     * @return Position of the row containing the offset (clamped to the last row)
+     */
+    public int getPosition(long offset) {
+        if (count == 0)
+            return 0;
+
+        // Binary lifting: each tree node at idx + step covers exactly step rows
+        int idx = 0;
+        long top = 0;
+        for (int step = Integer.highestOneBit(count); step > 0; step >>= 1) {
+            int next = idx + step;
+            if (next <= count) {
+                long bottom = top + tree[next] + (long) step * estimate;
+                if (bottom <= offset) {
+                    idx = next;
+                    top = bottom;
+                }
+            }
+        }
+        return Math.min(idx, count - 1);
+    }
+
+    /**
+     * Insert unmeasured rows
+     * This and the other structural changes below are O(n)
+     * @param pos Position of the first new row
+     * @param count Number of rows to insert
+     */
+    public void insert(int pos, int count) {
+        long[] values = toArray();
+        long[] shifted = new long[this.count + count + 1];
+        System.arraycopy(values, 1, shifted, 1, pos);
+        System.arraycopy(values, pos + 1, shifted, pos + count + 1, this.count - pos);
+        shiftMeasured(pos, this.count, count);
+        this.count += count;
+        fromArray(shifted);
+    }
+
+    /**
+     * Remove rows
+     * @param pos Position of the first removed row
+     * @param count Number of rows to remove
+     */
+    public void remove(int pos, int count) {
+        long[] values = toArray();
+        long[] shifted = new long[this.count - count + 1];
+        System.arraycopy(values, 1, shifted, 1, pos);
+        System.arraycopy(values, pos + count + 1, shifted, pos + 1, this.count - pos - count);
+        measured.clear(pos, pos + count);
+        shiftMeasured(pos + count, this.count, -count);
+        this.count -= count;
+        fromArray(shifted);
+    }
+
+    /**
+     * Move a row, keeping its measured height
+     * @param from Current position
+     * @param to New position
+     */
+    public void move(int from, int to) {
+        if (from == to)
+            return;
+        long[] values = toArray();
+        long value = values[from + 1];
+        boolean m = measured.get(from);
+        if (from < to) {
+            System.arraycopy(values, from + 2, values, from + 1, to - from);
+            shiftMeasured(from + 1, to + 1, -1);
+        } else {
+            System.arraycopy(values, to + 1, values, to + 2, from - to);
+            shiftMeasured(to, from, 1);
+        }
+        values[to + 1] = value;
+        measured.set(to, m);
+        fromArray(values);
+    }
+
+    // Move the measured flags in [from, to) by the given amount
+    private void shiftMeasured(int from, int to, int by) {
+        BitSet range = measured.get(from, to);
+        measured.clear(from, to);
+        for (int i = range.nextSetBit(0); i >= 0; i = range.nextSetBit(i + 1))
+            measured.set(from + i + by);
+    }
+
+    private long sum(int n) {
+        long sum = 0;
+        for (int i = n; i > 0; i -= i & -i)
+            sum += tree[i];
+        return sum;
+    }
+
+    private long[] toArray() {
+        long[] values = tree.clone();
+        for (int i = count; i > 0; i--) {
+            int parent = i + (i & -i);
+            if (parent <= count)
+                values[parent] -= values[i];
+        }
+        return values;
+    }
+
+    private void fromArray(long[] values) {
+        for (int i = 1; i <= count; i++) {
+            int parent = i + (i & -i);
+            if (parent <= count)
+                values[parent] += values[i];
+        }
+        this.tree = values;
+    }
+}
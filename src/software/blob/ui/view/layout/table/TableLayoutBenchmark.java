@@ -0,0 +1,93 @@
+package software.blob.ui.view.layout.table;
+
+import software.blob.ui.view.View;
+import software.blob.ui.view.layout.LayoutStats;
+
+import javax.swing.*;
+import java.awt.*;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Tool that times building and laying out large {@link TableLayout}s
+ *
+ * For each row count this reports the time to add the rows, the first layout of the table
+ * and the average layout after a single cell grows or shrinks, which should stay flat as
+ * the table gets larger since column widths are tracked incrementally.
+ *
+ * Runs headless, i.e. java -Djava.awt.headless=true ...
+ *
+ * Usage: TableLayoutBenchmark [row count...] (defaults to 1000 5000 10000)
+ */
+public class TableLayoutBenchmark {
+
+    private static final int COLUMNS = 4;
+    private static final int CHANGES = 200;
+
+    public static void main(String[] args) throws InterruptedException, InvocationTargetException {
+        int[] rowCounts = {1000, 5000, 10000};
+        if (args.length > 0) {
+            rowCounts = new int[args.length];
+            for (int i = 0; i < args.length; i++)
+                rowCounts[i] = Integer.parseInt(args[i]);
+        }
+
+        // Warm up the JIT so the first result isn't skewed
+        SwingUtilities.invokeAndWait(() -> run(1000, false));
+
+        for (int rows : rowCounts)
+            SwingUtilities.invokeAndWait(() -> run(rows, true));
+        System.exit(0);
+    }
+
+    private static void run(int rowCount, boolean print) {
+        long start = System.nanoTime();
+        TableLayout table = new TableLayout();
+        View[][] cells = new View[rowCount][COLUMNS];
+        for (int r = 0; r < rowCount; r++) {
+            TableRow row = new TableRow();
+            for (int c = 0; c < COLUMNS; c++) {
+                View cell = new View();
+                cell.setPreferredSize(new Dimension(getCellWidth(r, c), 16));
+                cells[r][c] = cell;
+                row.add(cell);
+            }
+            table.add(row);
+        }
+        long built = System.nanoTime();
+
+        JPanel root = new JPanel(new BorderLayout());
+        root.add(table);
+        root.setSize(800, 600);
+        root.addNotify();
+        root.validate();
+        long laidOut = System.nanoTime();
+
+        // Alternate between growing a cell past its column and shrinking it back
+        LayoutStats.reset();
+        long changeStart = System.nanoTime();
+        for (int i = 0; i < CHANGES; i++) {
+            int r = (int) ((long) i * 7919 % rowCount), c = i % COLUMNS;
+            View cell = cells[r][c];
+            int width = i % 2 == 0 ? 200 : getCellWidth(r, c);
+            cell.setPreferredSize(new Dimension(width, 16));
+            cell.invalidate();
+            root.validate();
+        }
+        long changed = System.nanoTime();
+        root.removeNotify();
+
+        if (print) {
+            System.out.printf("%,d rows: build %.1f ms, first layout %.1f ms, cell change %.3f ms%n",
+                    rowCount, ms(built - start), ms(laidOut - built), ms(changed - changeStart) / CHANGES);
+            System.out.println("  " + LayoutStats.getSummary());
+        }
+    }
+
+    private static int getCellWidth(int row, int column) {
+        return 20 + (row * 31 + column * 17) % 80;
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -6,72 +6,206 @@ import software.blob.ui.view.layout.LinearLayoutManager;
 
 import java.awt.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Table layout manager that measures table row column widths
+ *
+ * Each row's cell widths are counted per column, so a row change only adds and removes its own
+ * widths instead of rescanning the whole table.
  */
 public class TableLayoutManager extends LinearLayoutManager {
 
-    private final List<Integer> columnWidths = new ArrayList<>();
+    // Maximum passes over the rows per measure while column widths are still changing
+    private static final int MAX_MEASURE_PASSES = 2;
+
+    private final List<Column> columns = new ArrayList<>();
+    private int[] columnWidths = new int[0];
+    private int columnCount;
+
+    // Column width changes are applied after the current measure pass instead of re-entering it
+    private boolean measuring, changedWhileMeasuring;
+
+    /**
+     * Number of rows with each cell width in a column
+     */
+    private static class Column {
+
+        // counts[w] = number of rows whose cell in this column is w pixels wide
+        int[] counts = new int[64];
+        int rows, max = -1;
+
+        void add(int width) {
+            width = Math.max(0, width);
+            if (width >= counts.length)
+                counts = Arrays.copyOf(counts, Math.max(width + 1, counts.length * 2));
+            counts[width]++;
+            rows++;
+            if (width > max)
+                max = width;
+        }
+
+        void remove(int width) {
+            width = Math.max(0, width);
+            counts[width]--;
+            rows--;
+
+            // Only the last cell at the maximum width needs a scan for the next widest
+            if (width == max) {
+                while (max >= 0 && counts[max] == 0)
+                    max--;
+            }
+        }
+    }
 
     public TableLayoutManager(LinearLayout subject) {
         super(subject);
     }
 
     public int getColumnWidth(int index) {
-        return index < columnWidths.size() ? columnWidths.get(index) : -1;
+        return index < columnCount ? columnWidths[index] : -1;
     }
 
+    /**
+     * Update the column widths after a row was measured
+     * @param current Row layout manager
+     * @return True if the column widths changed and the table was invalidated
+     */
     public boolean onRowInvalidate(TableRowManager current) {
-        // Find max column widths for each row
-        List<Integer> columnWidths = new ArrayList<>();
-        Component[] children = this.subject.getComponents();
-        for (Component c : children) {
-            if (!(c instanceof TableRow))
-                continue;
-
-            TableRow row = (TableRow) c;
-            if (row.getVisibility() == View.GONE)
-                continue;
-
-            LayoutManager lm = row.getLayout();
-            if (!(lm instanceof TableRowManager))
-                continue;
-
-            TableRowManager mgr = (TableRowManager) lm;
-            List<Integer> widths = mgr.getColumnWidths();
-
-            for (int i = 0; i < widths.size(); i++) {
-                int colWidth;
-                int cWidth = widths.get(i);
-                if (i >= columnWidths.size())
-                    columnWidths.add(colWidth = 0);
-                else
-                    colWidth = columnWidths.get(i);
-                columnWidths.set(i, Math.max(cWidth, colWidth));
+        TableRow row = current.getRow();
+        if (row.getParent() != this.subject || row.getVisibility() == View.GONE)
+            uncount(current);
+        else if (!count(current))
+            return false;
+
+        if (!updateColumnWidths())
+            return false;
+
+        if (this.measuring) {
+            // Every row is measured again once the current pass is done
+            this.changedWhileMeasuring = true;
+            return false;
+        }
+
+        markRowsDirty();
+        this.subject.invalidate();
+        return true;
+    }
+
+    @Override
+    protected void onMeasure() {
+        // Stop counting rows that were hidden since they were measured
+        for (Component c : this.subject.getComponents()) {
+            if (c instanceof TableRow && ((TableRow) c).getVisibility() == View.GONE) {
+                LayoutManager lm = ((TableRow) c).getLayout();
+                if (lm instanceof TableRowManager)
+                    uncount((TableRowManager) lm);
             }
         }
+        boolean changed = updateColumnWidths();
 
-        // Check if any of the max column widths have changed
-        boolean changed = true;
-        if (this.columnWidths.size() == columnWidths.size()) {
-            changed = false;
-            for (int i = 0; i < columnWidths.size(); i++) {
-                if (!this.columnWidths.get(i).equals(columnWidths.get(i))) {
-                    changed = true;
-                    break;
-                }
+        for (int pass = 0; pass < MAX_MEASURE_PASSES; pass++) {
+            if (changed)
+                markRowsDirty();
+            this.measuring = true;
+            this.changedWhileMeasuring = false;
+            try {
+                super.onMeasure();
+            } finally {
+                this.measuring = false;
             }
+            changed = this.changedWhileMeasuring;
+            if (!changed)
+                return;
         }
 
-        // Update widths
-        if (changed) {
-            this.columnWidths.clear();
-            this.columnWidths.addAll(columnWidths);
-            this.subject.invalidate();
+        // Still changing, so measure again later
+        markRowsDirty();
+        this.subject.invalidate();
+    }
+
+    @Override
+    public void removeLayoutComponent(Component comp) {
+        if (comp instanceof TableRow && ((TableRow) comp).getLayout() instanceof TableRowManager)
+            uncount((TableRowManager) ((TableRow) comp).getLayout());
+        super.removeLayoutComponent(comp);
+    }
+
+    @Override
+    public void removeAll() {
+        for (Component c : this.subject.getComponents()) {
+            if (c instanceof TableRow && ((TableRow) c).getLayout() instanceof TableRowManager)
+                ((TableRowManager) ((TableRow) c).getLayout()).countedWidths = null;
         }
+        columns.clear();
+        columnCount = 0;
+        super.removeAll();
+    }
+
+    /**
+     * Count a row's cell widths, replacing the widths it was counted with before
+     * @return False if the widths haven't changed
+     */
+    private boolean count(TableRowManager row) {
+        int count = row.getColumnCount();
+        int[] widths = new int[count];
+        for (int i = 0; i < count; i++)
+            widths[i] = row.getMeasuredWidth(i);
+        int[] old = row.countedWidths;
+        if (Arrays.equals(old, widths))
+            return false;
+
+        // Add the new widths first so removing the old ones only scans when the widest cell shrank
+        for (int i = 0; i < count; i++) {
+            if (i == columns.size())
+                columns.add(new Column());
+            columns.get(i).add(widths[i]);
+        }
+        row.countedWidths = widths;
+        if (old != null) {
+            for (int i = 0; i < old.length; i++)
+                columns.get(i).remove(old[i]);
+        }
+        return true;
+    }
 
+    private void uncount(TableRowManager row) {
+        int[] widths = row.countedWidths;
+        if (widths == null)
+            return;
+        for (int i = 0; i < widths.length; i++)
+            columns.get(i).remove(widths[i]);
+        row.countedWidths = null;
+    }
+
+    /**
+     * Update the cached maximum width of each column
+     * @return True if any column width changed
+     */
+    private boolean updateColumnWidths() {
+        int count = columns.size();
+        while (count > 0 && columns.get(count - 1).rows == 0)
+            count--;
+
+        boolean changed = count != this.columnCount;
+        if (this.columnWidths.length < count)
+            this.columnWidths = Arrays.copyOf(this.columnWidths, Math.max(count, this.columnWidths.length * 2));
+        for (int i = 0; i < count; i++) {
+            int width = columns.get(i).max;
+            if (this.columnWidths[i] != width) {
+                this.columnWidths[i] = width;
+                changed = true;
+            }
+        }
+        this.columnCount = count;
         return changed;
     }
+
+    private void markRowsDirty() {
+        for (Component c : this.subject.getComponents()) {
+            if (c instanceof TableRow && ((TableRow) c).getLayout() instanceof TableRowManager)
+                ((TableRowManager) ((TableRow) c).getLayout()).markDirty();
+        }
+    }
 }
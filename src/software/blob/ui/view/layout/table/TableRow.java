@@ -22,4 +22,16 @@ public class TableRow extends LinearLayout {
         setOrientation(HORIZONTAL); // Table rows must be horizontal
         setLayout(new TableRowManager(this));
     }
+
+    @Override
+    public boolean isRelayoutBoundary() {
+        // Row content changes the column widths of the whole table
+        return false;
+    }
+
+    @Override
+    protected boolean overridesChildSize() {
+        // Cells are sized to the widest cell in their column
+        return true;
+    }
 }
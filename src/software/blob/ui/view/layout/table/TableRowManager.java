@@ -4,7 +4,7 @@ import software.blob.ui.view.View;
 import software.blob.ui.view.layout.LinearLayoutManager;
 
 import java.awt.*;
-import java.util.ArrayList;
+import java.util.AbstractList;
 import java.util.List;
 
 /**
@@ -13,13 +13,23 @@ import java.util.List;
 public class TableRowManager extends LinearLayoutManager {
 
     private final TableRow subject;
-    private final List<Integer> columnWidths = new ArrayList<>();
+
+    // Measured width of each visible cell
+    private int[] columnWidths = new int[0];
+    private int columnCount;
+
+    // Widths currently counted by the table layout (null if not counted)
+    int[] countedWidths;
 
     public TableRowManager(TableRow subject) {
         super(subject);
         this.subject = subject;
     }
 
+    TableRow getRow() {
+        return this.subject;
+    }
+
     private TableLayoutManager getTableLayout() {
         Container parent = subject.getParent();
         if (parent != null) {
@@ -50,15 +60,11 @@ public class TableRowManager extends LinearLayoutManager {
     }
 
     @Override
-    public void invalidateLayout(Container target) {
-        if (this.subject.inBulkOperation())
-            return;
-
+    protected void onMeasure() {
         Component[] children = this.subject.getComponents();
-        if (children.length != this.childLayouts.size())
-            return;
-
-        columnWidths.clear();
+        if (columnWidths.length < children.length)
+            columnWidths = new int[children.length];
+        columnCount = 0;
         for (int i = 0; i < children.length; i++) {
             Component c = children[i];
 
@@ -67,17 +73,46 @@ public class TableRowManager extends LinearLayoutManager {
                 continue;
 
             Dimension dim = super.getChildSize(c, i);
-            columnWidths.add(dim.width);
+            columnWidths[columnCount++] = dim.width;
         }
 
         TableLayoutManager tlm = getTableLayout();
         if (tlm != null && tlm.onRowInvalidate(this))
             return;
 
-        super.invalidateLayout(target);
+        super.onMeasure();
+    }
+
+    /**
+     * Get the number of visible cells measured in this row
+     * @return Column count
+     */
+    public int getColumnCount() {
+        return this.columnCount;
+    }
+
+    /**
+     * Get the measured width of a visible cell
+     * @param column Column index
+     * @return Width in pixels
+     */
+    public int getMeasuredWidth(int column) {
+        return this.columnWidths[column];
     }
 
     public List<Integer> getColumnWidths() {
-        return columnWidths;
+        return new AbstractList<Integer>() {
+            @Override
+            public Integer get(int index) {
+                if (index >= columnCount)
+                    throw new IndexOutOfBoundsException(String.valueOf(index));
+                return columnWidths[index];
+            }
+
+            @Override
+            public int size() {
+                return columnCount;
+            }
+        };
     }
 }
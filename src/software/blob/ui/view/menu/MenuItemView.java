@@ -21,8 +21,10 @@ public class MenuItemView extends JMenuItem {
         setName(attrs.getString("name", ""));
 
         String iconUri = attrs.getString("icon", null);
-        if (iconUri != null)
-            setIcon(Resources.getIcon(iconUri));
+        if (iconUri != null) {
+            int iconSize = attrs.getDimension("iconSize", 0);
+            setIcon(iconSize > 0 ? Resources.getIcon(iconUri, iconSize, iconSize) : Resources.getIcon(iconUri));
+        }
 
         String hotkey = attrs.getString("hotkey", null);
         if (hotkey != null) {
@@ -15,7 +15,9 @@ public class MenuView extends JMenu {
         setName(attrs.getString("name", ""));
 
         String iconUri = attrs.getString("icon", null);
-        if (iconUri != null)
-            setIcon(Resources.getIcon(iconUri));
+        if (iconUri != null) {
+            int iconSize = attrs.getDimension("iconSize", 0);
+            setIcon(iconSize > 0 ? Resources.getIcon(iconUri, iconSize, iconSize) : Resources.getIcon(iconUri));
+        }
     }
 }
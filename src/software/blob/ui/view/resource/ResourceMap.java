@@ -1,144 +1,539 @@
 package software.blob.ui.view.resource;
 
-import org.w3c.dom.NamedNodeMap;
+import software.blob.ui.res.ResourcePack;
 import software.blob.ui.res.Resources;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import software.blob.ui.res.UsageProfile;
+import software.blob.ui.util.Log;
+import software.blob.ui.view.AttributeSet;
+import software.blob.ui.view.layout.LayoutInflater;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.awt.*;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.InputStream;
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.util.*;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Layout resources
+ *
+ * Values files are only indexed up front (resource keys and which file defines them).
+ * The values themselves are parsed the first time a resource from that file is looked up.
  */
 public class ResourceMap {
 
     private static final File RES_DIR = new File("./res/values");
 
-    private static final Map<String, Object> RES_MAP = new HashMap<>();
+    // Loaded resource values
+    private static final Map<String, Object> RES_MAP = new ConcurrentHashMap<>();
+
+    // Values decoded at load time (packed ARGB colors, dimensions in pixels, booleans)
+    private static final Map<String, Object> TYPED_MAP = new ConcurrentHashMap<>();
+
+    // Resource key -> source which defines it
+    private static final Map<String, Source> RES_INDEX = new ConcurrentHashMap<>();
+
+    // Sources that have been fully parsed
+    private static final Set<Source> loaded = ConcurrentHashMap.newKeySet();
 
     static {
         scan();
     }
 
+    /**
+     * A single values file stream or compiled resource pack
+     * The same file may be provided by the file system and multiple resource classes
+     */
+    private static class Source {
+
+        final File file;
+        final int stream;
+        final ResourcePack pack;
+
+        Source(File file, int stream) {
+            this.file = file;
+            this.stream = stream;
+            this.pack = null;
+        }
+
+        Source(ResourcePack pack) {
+            this.file = pack.getFile();
+            this.stream = -1;
+            this.pack = pack;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Source))
+                return false;
+            Source other = (Source) o;
+            return file.equals(other.file) && stream == other.stream;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * file.hashCode() + stream;
+        }
+
+        @Override
+        public String toString() {
+            return file + " [" + stream + "]";
+        }
+    }
+
+    /**
+     * Get the directory loose values files are loaded from
+     * @return Values directory
+     */
+    public static File getValuesDir() {
+        return RES_DIR;
+    }
+
     private static void scan() {
+        scan(RES_INDEX);
+    }
+
+    /**
+     * Index the resource keys of every values file
+     * @param index Map to add keys to
+     */
+    private static void scan(Map<String, Source> index) {
         // Default resources
-        loadResourceFile(new File(RES_DIR, "color.xml"));
-        loadResourceFile(new File(RES_DIR, "dimen.xml"));
-        loadResourceFile(new File(RES_DIR, "style.xml"));
+        Set<File> files = new LinkedHashSet<>();
+        files.add(new File(RES_DIR, "color.xml"));
+        files.add(new File(RES_DIR, "dimen.xml"));
+        files.add(new File(RES_DIR, "style.xml"));
+
+        File[] dirFiles = RES_DIR.listFiles();
+        if (dirFiles != null) {
+            for (File f : dirFiles) {
+                if (f.getName().endsWith(".xml"))
+                    files.add(f);
+            }
+        }
 
-        File[] files = RES_DIR.listFiles();
-        if (files == null)
+        List<ResourcePack> packs = Resources.getResourcePacks();
+        if (packs.isEmpty()) {
+            for (File f : files)
+                indexResourceFile(f, index);
             return;
+        }
+
+        // Compiled values replace those found on the class path
+        for (int i = packs.size() - 1; i >= 0; i--) {
+            Source src = new Source(packs.get(i));
+            for (String key : src.pack.getKeys()) {
+                int type = src.pack.getType(key);
+                if (type == ResourcePack.TYPE_STRING || type == ResourcePack.TYPE_INT
+                        || type == ResourcePack.TYPE_BOOLEAN || type == ResourcePack.TYPE_STYLE)
+                    index.put(key, src);
+            }
+        }
+
+        // Loose files still override the packs
         for (File f : files) {
-            if (!f.getName().endsWith(".xml"))
+            if (!f.exists())
                 continue;
-            loadResourceFile(f);
+            try (InputStream is = new FileInputStream(f)) {
+                readResourceFile(is, new Source(f, 0), index);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
         }
     }
 
-    private static void loadResourceFile(File xmlFile) {
+    /**
+     * Get the keys of all known resources
+     * @return Resource keys (i.e. "color/white")
+     */
+    public static Set<String> getKeys() {
+        return Collections.unmodifiableSet(RES_INDEX.keySet());
+    }
+
+    /**
+     * Load every indexed resource now instead of on first lookup
+     */
+    public static void loadAll() {
+        for (Map.Entry<String, Source> e : RES_INDEX.entrySet()) {
+            Source src = e.getValue();
+            if (src.pack != null)
+                loadPackResource(src, e.getKey());
+            else
+                load(src);
+        }
+    }
+
+    /**
+     * Load every indexed resource in the background
+     * @return Future which completes once all resources are loaded
+     */
+    public static CompletableFuture<Void> warmup() {
+        return CompletableFuture.runAsync(ResourceMap::loadAll, LayoutInflater.getExecutor());
+    }
+
+    /**
+     * Reload a values file which changed on disk
+     * Only the values defined by the file (before or after the change) are invalidated,
+     * along with any styles which inherit from or reference them.
+     * @param xmlFile Values file (created, modified or deleted)
+     * @return Keys of the invalidated resources
+     */
+    public static synchronized Set<String> reload(File xmlFile) {
+        Set<String> affected = new HashSet<>();
+
+        // Rebuild the key index; this only reads element names
+        Map<String, Source> index = new HashMap<>();
+        scan(index);
+        for (Map.Entry<String, Source> e : RES_INDEX.entrySet()) {
+            Source src = e.getValue();
+            if (src.file.equals(xmlFile) || !src.equals(index.get(e.getKey())))
+                affected.add(e.getKey());
+        }
+        for (Map.Entry<String, Source> e : index.entrySet()) {
+            if (e.getValue().file.equals(xmlFile) || !e.getValue().equals(RES_INDEX.get(e.getKey())))
+                affected.add(e.getKey());
+        }
+        RES_INDEX.putAll(index);
+        RES_INDEX.keySet().retainAll(index.keySet());
+
+        // Styles copy their parent's attributes and resolve references when used,
+        // so anything inheriting from or referring to a changed resource is stale too
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Map.Entry<String, Object> e : RES_MAP.entrySet()) {
+                if (!(e.getValue() instanceof StyleResource) || affected.contains(e.getKey()))
+                    continue;
+                StyleResource style = (StyleResource) e.getValue();
+                boolean stale = affected.contains(style.getParentKey());
+                for (String value : style.values()) {
+                    if (value.startsWith("@") && affected.contains(value.substring(1)))
+                        stale = true;
+                }
+                if (stale)
+                    changed |= affected.add(e.getKey());
+            }
+        }
+
+        // Drop the stale values, they'll be parsed again on the next lookup
+        for (String key : affected) {
+            RES_MAP.remove(key);
+            TYPED_MAP.remove(key);
+            Source src = RES_INDEX.get(key);
+            if (src != null)
+                loaded.remove(src);
+        }
+        loaded.removeIf(src -> src.file.equals(xmlFile));
+        return affected;
+    }
+
+    private static void indexResourceFile(File xmlFile, Map<String, Source> index) {
         List<InputStream> streams = null;
         try {
             streams = Resources.getResourceStreams(xmlFile);
-            for (int i = 0; i < streams.size(); i++) {
-                InputStream is = streams.remove(i--);
-                loadResourceFile(is);
+            for (int i = 0; !streams.isEmpty(); i++) {
+                InputStream is = streams.remove(0);
+                readResourceFile(is, new Source(xmlFile, i), index);
                 is.close();
             }
         } catch (Exception e) {
             e.printStackTrace();
         } finally {
-            if (streams != null) {
-                for (InputStream is : streams) {
-                    try {
-                        is.close();
-                    } catch (Exception ignored) {}
+            close(streams);
+        }
+    }
+
+    private static synchronized void load(Source src) {
+        if (!loaded.add(src))
+            return;
+        List<InputStream> streams = null;
+        try {
+            streams = Resources.getResourceStreams(src.file, src.stream + 1);
+            if (src.stream < streams.size())
+                readResourceFile(streams.get(src.stream), src, null);
+            else
+                Log.w("Resource file no longer available: " + src);
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            close(streams);
+        }
+    }
+
+    /**
+     * Read a single resource from a compiled resource pack
+     * @param src Pack source
+     * @param key Resource key
+     */
+    private static void loadPackResource(Source src, String key) {
+        if (RES_MAP.containsKey(key))
+            return;
+        ResourcePack pack = src.pack;
+        ByteBuffer data = pack.getData(key);
+        if (data == null)
+            return;
+        int type = pack.getType(key);
+        if (type == ResourcePack.TYPE_STYLE) {
+            // Parent attributes are already merged into the compiled style
+            StyleResource style = new StyleResource(key.substring(key.indexOf('/') + 1));
+            int count = data.getInt();
+            for (int i = 0; i < count; i++)
+                style.put(pack.getString(data.getInt()), pack.getString(data.getInt()));
+            RES_MAP.put(key, style);
+            return;
+        }
+        String value = pack.getString(data.getInt());
+        if (type == ResourcePack.TYPE_INT)
+            TYPED_MAP.put(key, data.getInt());
+        else if (type == ResourcePack.TYPE_BOOLEAN)
+            TYPED_MAP.put(key, data.get() != 0);
+        RES_MAP.put(key, value);
+    }
+
+    /**
+     * Read a values file
+     * @param is Input stream
+     * @param src Source the stream belongs to
+     * @param index Map to add the resource keys to, or null to parse the values
+     */
+    private static void readResourceFile(InputStream is, Source src, Map<String, Source> index) {
+        XMLStreamReader reader = null;
+        try {
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+            factory.setProperty(XMLInputFactory.IS_COALESCING, index == null);
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            reader = factory.createXMLStreamReader(is);
+
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT
+                        && reader.getLocalName().equals("resources")) {
+                    if (index == null)
+                        readResources(reader, src);
+                    else
+                        indexResources(reader, src, index);
                 }
             }
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (Exception ignored) {}
+            }
         }
     }
 
-    private static void loadResourceFile(InputStream is) {
-        try {
-            DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-            Document doc = dBuilder.parse(is);
+    private static void indexResources(XMLStreamReader reader, Source src, Map<String, Source> index)
+            throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT)
+                return;
+            if (event != XMLStreamConstants.START_ELEMENT)
+                continue;
 
-            doc.getDocumentElement().normalize();
+            // Later definitions override earlier ones
+            String atName = reader.getAttributeValue(null, "name");
+            index.put(reader.getLocalName() + "/" + atName, src);
+            skip(reader);
+        }
+    }
 
-            NodeList res = doc.getElementsByTagName("resources");
-            if (res == null)
+    private static void readResources(XMLStreamReader reader, Source src) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT)
                 return;
+            if (event != XMLStreamConstants.START_ELEMENT)
+                continue;
 
-            int rLength = res.getLength();
-            for (int i = 0; i < rLength; i++) {
+            String elName = reader.getLocalName();
+
+            // Name attribute
+            String atName = reader.getAttributeValue(null, "name");
+            String key = elName + "/" + atName;
+
+            // Overridden by another file
+            if (!src.equals(RES_INDEX.get(key))) {
+                skip(reader);
+                continue;
+            }
 
-                Node rNode = res.item(i);
-                NodeList children = rNode.getChildNodes();
-                int nLength = children.getLength();
+            if (elName.equals("style")) {
+                // Style resource parsing
+                StyleResource style = new StyleResource(atName);
 
-                for (int j = 0; j < nLength; j++) {
+                // Parent resource to inherit from (resolved when the style is first used)
+                style.setParentKey(reader.getAttributeValue(null, "parent"));
 
-                    Node n = children.item(j);
-                    String elName = n.getNodeName();
-                    if (elName.equals("#text"))
+                // Read attributes
+                while (reader.hasNext()) {
+                    event = reader.next();
+                    if (event == XMLStreamConstants.END_ELEMENT)
+                        break;
+                    if (event != XMLStreamConstants.START_ELEMENT)
                         continue;
+                    if (reader.getLocalName().equals("item")) {
+                        String itemName = reader.getAttributeValue(null, "name");
+                        String itemValue = reader.getElementText();
+                        style.put(itemName, itemValue);
+                    } else
+                        skip(reader);
+                }
 
-                    NamedNodeMap attrs = n.getAttributes();
-
-                    // Name attribute
-                    String atName = attrs.getNamedItem("name").getNodeValue();
-
-                    if (elName.equals("style")) {
-                        // Style resource parsing
-                        StyleResource style = new StyleResource(atName);
-
-                        // Parent resource to inherit from
-                        Node parentName = attrs.getNamedItem("parent");
-                        if (parentName != null) {
-                            StyleResource parent = getStyleResource(parentName.getNodeValue());
-                            style.setParent(parent);
-                        }
-
-                        // Read attributes
-                        NodeList sChildren = n.getChildNodes();
-                        int sLength = sChildren.getLength();
-                        for (int s = 0; s < sLength; s++) {
-                            n = sChildren.item(s);
-                            elName = n.getNodeName();
-                            if (elName.equals("item")) {
-                                String itemName = n.getAttributes().getNamedItem("name").getNodeValue();
-                                String itemValue = n.getFirstChild().getNodeValue();
-                                style.put(itemName, itemValue);
-                            }
-                        }
-
-                        RES_MAP.put("style/" + style.getName(), style);
-                    } else {
-                        // String resource
-                        Node value = n.getFirstChild();
-                        if (value != null)
-                            RES_MAP.put(elName + "/" + atName, value.getNodeValue());
-                    }
+                RES_MAP.put(key, style);
+            } else {
+                // String resource
+                String value = readText(reader);
+                if (!value.isEmpty()) {
+                    Object typed = decode(elName, value);
+                    if (typed != null)
+                        TYPED_MAP.put(key, typed);
+                    RES_MAP.put(key, value);
                 }
             }
-        } catch (Exception e) {
-            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Decode a resource value to its typed form
+     * @param type Resource type
+     * @param value Raw value
+     * @return Typed value or null if the type has no typed form or the value is invalid
+     */
+    private static Object decode(String type, String value) {
+        switch (type) {
+            case "color":
+                try {
+                    return Color.decode(value).getRGB();
+                } catch (Exception e) {
+                    return null;
+                }
+            case "dimen": {
+                int dimen = AttributeSet.parseDimension(value, Integer.MIN_VALUE);
+                return dimen != Integer.MIN_VALUE ? dimen : null;
+            }
+            case "bool":
+                return Boolean.parseBoolean(value);
+        }
+        return null;
+    }
+
+    /**
+     * Read the text content of the current element, ignoring any nested elements
+     * @param reader XML stream reader
+     * @return Text content
+     * @throws XMLStreamException Malformed XML
+     */
+    private static String readText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                    || event == XMLStreamConstants.SPACE)
+                text.append(reader.getText());
+            else if (event == XMLStreamConstants.START_ELEMENT)
+                skip(reader);
+            else if (event == XMLStreamConstants.END_ELEMENT)
+                break;
+        }
+        return text.toString();
+    }
+
+    private static void skip(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT)
+                depth++;
+            else if (event == XMLStreamConstants.END_ELEMENT)
+                depth--;
+        }
+    }
+
+    private static void close(List<InputStream> streams) {
+        if (streams == null)
+            return;
+        for (InputStream is : streams) {
+            try {
+                is.close();
+            } catch (Exception ignored) {}
         }
     }
 
     public static Object getResource(String key) {
+        if (UsageProfile.isRecording() && key.startsWith("style/"))
+            UsageProfile.record(UsageProfile.Type.STYLE, key.substring("style/".length()));
+
+        Object o = RES_MAP.get(key);
+        if (o != null)
+            return o;
+
+        // Parse the file which defines this resource
+        Source src = RES_INDEX.get(key);
+        if (src == null)
+            return null;
+        if (src.pack != null)
+            loadPackResource(src, key);
+        else
+            load(src);
         return RES_MAP.get(key);
     }
 
+    /**
+     * Get the decoded value of a color, dimension or boolean resource
+     * @param key Resource key (i.e. "color/white")
+     * @return Packed ARGB color (Integer), dimension (Integer), boolean or null if not found
+     */
+    public static Object getTypedResource(String key) {
+        Object o = TYPED_MAP.get(key);
+        if (o == null && getResource(key) != null)
+            o = TYPED_MAP.get(key);
+        return o;
+    }
+
+    /**
+     * Get a color resource as a packed ARGB value
+     * @param key Color name
+     * @param defVal Value to return if not found
+     * @return ARGB color
+     */
+    public static int getColorValue(String key, int defVal) {
+        Object o = getTypedResource("color/" + key);
+        return o instanceof Integer ? (Integer) o : defVal;
+    }
+
+    /**
+     * Get a dimension resource
+     * @param key Dimension name
+     * @param defVal Value to return if not found
+     * @return Dimension in pixels
+     */
+    public static int getDimensionValue(String key, int defVal) {
+        Object o = getTypedResource("dimen/" + key);
+        return o instanceof Integer ? (Integer) o : defVal;
+    }
+
+    /**
+     * Get a boolean resource
+     * @param key Boolean name
+     * @param defVal Value to return if not found
+     * @return Boolean value
+     */
+    public static boolean getBooleanValue(String key, boolean defVal) {
+        Object o = getTypedResource("bool/" + key);
+        return o instanceof Boolean ? (Boolean) o : defVal;
+    }
+
     public static StyleResource getStyleResource(String key) {
         Object o = getResource(key);
         return o instanceof StyleResource ? (StyleResource) o : null;
@@ -150,12 +545,7 @@ public class ResourceMap {
     }
 
     public static Color getColorResource(String key) {
-        String value = getStringResource("color/" + key);
-        // Hex color code
-        try {
-            return Color.decode(value);
-        } catch (Exception e) {
-            return null;
-        }
+        Object o = getTypedResource("color/" + key);
+        return o instanceof Integer ? new Color((Integer) o, true) : null;
     }
 }
@@ -1,18 +1,28 @@
 package software.blob.ui.view.resource;
 
-import org.w3c.dom.Attr;
+import software.blob.ui.util.Log;
 import software.blob.ui.view.AttributeSet;
 
-import java.util.Map;
+import java.util.*;
 
 /**
  * Contains multiple resource attributes
+ *
+ * A style only holds the items it declares itself. Inherited items are merged in lazily the
+ * first time the style is used, so a parent may be declared before or after its children.
  */
 public class StyleResource extends AttributeSet {
 
     // Style name
     private final String name;
 
+    // Key of the style this inherits from
+    private String parentKey;
+
+    // Memoized flattened items and resolved attributes (shared by all users of this style)
+    private volatile Map<String, String> flattened;
+    private volatile AttributeSet resolved;
+
     public StyleResource(String name) {
         this.name = name;
     }
@@ -27,25 +37,111 @@ public class StyleResource extends AttributeSet {
      */
     public void setParent(StyleResource parent) {
         if (parent != null)
-            putAll(parent);
+            setParentKey("style/" + parent.getName());
+    }
+
+    /**
+     * Set the style to inherit properties from
+     * The parent is looked up when this style is first resolved, so it doesn't need to be loaded yet.
+     * @param parentKey Parent key (i.e. "style/base", "@style/base" or "base")
+     */
+    public void setParentKey(String parentKey) {
+        if (parentKey != null) {
+            if (parentKey.startsWith("@"))
+                parentKey = parentKey.substring(1);
+            if (!parentKey.contains("/"))
+                parentKey = "style/" + parentKey;
+        }
+        this.parentKey = parentKey;
+        invalidate();
+    }
+
+    /**
+     * Get the resource key of the style this inherits from
+     * @return Parent key (i.e. "style/base") or null if none
+     */
+    public String getParentKey() {
+        return this.parentKey;
+    }
+
+    /**
+     * Get this style's items merged with those it inherits
+     * Values are left unresolved (i.e. "@color/white").
+     * @return Read-only flattened items
+     */
+    public Map<String, String> getFlattened() {
+        return flatten(new LinkedHashSet<>());
+    }
+
+    private Map<String, String> flatten(Set<String> path) {
+        Map<String, String> items = this.flattened;
+        if (items != null)
+            return items;
+
+        items = new HashMap<>();
+        path.add("style/" + name);
+        if (parentKey != null) {
+            StyleResource parent = ResourceMap.getStyleResource(parentKey);
+            if (parent == null)
+                Log.w("Style " + name + " inherits from missing style " + parentKey);
+            else if (path.contains(parentKey))
+                Log.w("Style " + name + " has circular inheritance: " + path + " -> " + parentKey);
+            else
+                items.putAll(parent.flatten(path));
+        }
+        items.putAll(this);
+        this.flattened = items = Collections.unmodifiableMap(items);
+        return items;
+    }
+
+    private void invalidate() {
+        this.flattened = null;
+        this.resolved = null;
+    }
+
+    @Override
+    public String put(String key, String value) {
+        invalidate();
+        return super.put(key, value);
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ? extends String> m) {
+        invalidate();
+        super.putAll(m);
+    }
+
+    @Override
+    public String remove(Object key) {
+        invalidate();
+        return super.remove(key);
     }
 
     /**
      * Convert this style resource to an attribute set with resolved resource values
+     * The result is computed once and shared, so it must not be modified.
      * @return Attribute set
      */
     public AttributeSet getResolvedAttributeSet() {
-        AttributeSet attrs = new AttributeSet();
-        for (Map.Entry<String, String> e : entrySet()) {
+        AttributeSet attrs = this.resolved;
+        if (attrs != null)
+            return attrs;
+
+        attrs = new AttributeSet();
+        for (Map.Entry<String, String> e : getFlattened().entrySet()) {
             String sKey = e.getKey();
             String sVal = e.getValue();
             if (sVal.startsWith("@")) {
-                String sRef = ResourceMap.getStringResource(sVal.substring(1));
-                if (sRef != null)
-                    sVal = sRef;
+                String resKey = sVal.substring(1);
+                String sRef = ResourceMap.getStringResource(resKey);
+                if (sRef != null) {
+                    attrs.putReference(sKey, resKey, sRef);
+                    continue;
+                }
             }
             attrs.put(sKey, sVal);
         }
+        this.resolved = attrs = attrs.freeze();
         return attrs;
     }
 }